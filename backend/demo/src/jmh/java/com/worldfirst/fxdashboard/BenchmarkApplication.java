@@ -0,0 +1,19 @@
+package com.worldfirst.fxdashboard;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Application context used by the JMH benchmarks. Lives in the root package so
+ * repositories and entities are picked up exactly as in the real application,
+ * whose own entry point is excluded.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ANNOTATION, classes = SpringBootApplication.class))
+public class BenchmarkApplication {
+}
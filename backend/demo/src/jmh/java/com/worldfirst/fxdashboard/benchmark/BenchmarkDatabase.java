@@ -0,0 +1,138 @@
+package com.worldfirst.fxdashboard.benchmark;
+
+import com.worldfirst.fxdashboard.BenchmarkApplication;
+import com.worldfirst.fxdashboard.config.CacheWarmer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Boots the application against the docker-compose Postgres (or whatever
+ * -Dfx.bench.jdbc-url points at) on a freshly reset schema and seeds a synthetic
+ * book on top of the DataInitializer mock data: one position per generated
+ * currency and a random-walk tick history spread evenly across their USD pairs.
+ * Each pair's ticks are spaced evenly over the whole {@link #HISTORY_WINDOW}, so
+ * range queries anywhere in it find data at every book size.
+ */
+@Slf4j
+public final class BenchmarkDatabase implements AutoCloseable {
+    private static final Set<String> RESERVED = Set.of("USD", "EUR", "GBP", "JPY", "CNY");
+
+    // Range benchmarks must pick their windows inside this
+    public static final Duration HISTORY_WINDOW = Duration.ofHours(25);
+
+    private final ConfigurableApplicationContext context;
+    private final List<String> currencies;
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context, List<String> currencies) {
+        this.context = context;
+        this.currencies = currencies;
+    }
+
+    public static BenchmarkDatabase start(int positionCount, int tickCount) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty(
+                                "fx.bench.jdbc-url", "jdbc:postgresql://localhost:5433/fx_risk_db"),
+                        "spring.datasource.username=" + System.getProperty("fx.bench.username", "postgres"),
+                        "spring.datasource.password=" + System.getProperty("fx.bench.password", "password"),
+                        "fx.schema.reset-on-startup=true",
+                        "fx.seed.enabled=true",
+                        "logging.level.root=WARN")
+                .run();
+
+        BenchmarkDatabase database = new BenchmarkDatabase(context, generateCurrencies(positionCount));
+        database.seed(tickCount);
+        return database;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public List<String> getCurrencies() {
+        return currencies;
+    }
+
+    public String pairFor(String currency) {
+        return "USD" + currency;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private void seed(int tickCount) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> positions = new ArrayList<>(currencies.size());
+        for (int i = 0; i < currencies.size(); i++) {
+            positions.add(new Object[] {
+                    currencies.get(i),
+                    BigDecimal.valueOf(10_000L + (i * 7_919L) % 3_000_000L),
+                    BigDecimal.valueOf((i * 104_729L) % 200_000L),
+                    BigDecimal.valueOf((i * 15_485_863L) % 250_000L),
+                    "LOW",
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO currency_positions
+                (currency, balance, pending_income, pending_payments, risk_level, last_updated)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, positions);
+
+        // Generated server side so a million-row history loads in seconds
+        int ticksPerPair = Math.max(1, tickCount / currencies.size());
+        double tickSpacingSeconds = (double) HISTORY_WINDOW.toSeconds() / ticksPerPair;
+        jdbcTemplate.update("""
+                INSERT INTO exchange_rates
+                (currency_pair, rate, bid, ask, timestamp, source, volatility_index)
+                SELECT 'USD' || c.code,
+                       r.rate, r.rate - 0.0002, r.rate + 0.0002,
+                       now() - make_interval(secs => g * ?),
+                       'BENCHMARK',
+                       0.10
+                FROM unnest(?::varchar[]) AS c(code)
+                CROSS JOIN generate_series(1, ?) AS g
+                CROSS JOIN LATERAL (SELECT round((1 + random())::numeric, 6) AS rate) r
+                """,
+                ps -> {
+                    ps.setDouble(1, tickSpacingSeconds);
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", currencies.toArray()));
+                    ps.setInt(3, ticksPerPair);
+                });
+        jdbcTemplate.execute("ANALYZE exchange_rates");
+
+        // Caches and engines were warmed before the synthetic book existed
+        context.getBean(CacheWarmer.class).warmCaches();
+        log.warn("Seeded {} positions and {} ticks", currencies.size(), ticksPerPair * currencies.size());
+    }
+
+    private static List<String> generateCurrencies(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; codes.size() < count; i++) {
+            String code = new String(new char[] {
+                    (char) ('A' + i / (26 * 26) % 26),
+                    (char) ('A' + i / 26 % 26),
+                    (char) ('A' + i % 26)
+            });
+            if (!RESERVED.contains(code)) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,126 @@
+package com.worldfirst.fxdashboard.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load test for GET /api/v1/fx/dashboard. For each concurrency level
+ * it runs that many clients back to back for a fixed duration and reports
+ * throughput and latency percentiles.
+ *
+ * The application ships no thread-model setting of its own and defaults to
+ * platform threads. To compare, start it once as is and once with Spring Boot's
+ * spring.threads.virtual.enabled=true (Java 21+), which moves both Tomcat
+ * requests and the application task executor onto virtual threads, and run:
+ * {@code java ... DashboardLoadTest http://localhost:8080 30 50,200,1000}
+ * No results are recorded in the repository.
+ */
+public final class DashboardLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int[] levels = args.length > 2
+                ? Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {50, 200, 1000};
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/fx/dashboard"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        System.out.printf("%-12s %12s %10s %10s %10s %10s%n",
+                "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int clients : levels) {
+            run(client, request, clients, seconds);
+        }
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int clients, int seconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Recorder>> futures = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            futures.add(pool.submit(() -> {
+                Recorder recorder = new Recorder();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            recorder.record(System.nanoTime() - start);
+                        } else {
+                            recorder.errors++;
+                        }
+                    } catch (Exception e) {
+                        recorder.errors++;
+                    }
+                }
+                return recorder;
+            }));
+        }
+
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) {
+            total.merge(future.get());
+        }
+        pool.shutdown();
+
+        long[] latencies = total.sorted();
+        System.out.printf("%-12d %12.1f %10.2f %10.2f %10.2f %10d%n",
+                clients,
+                latencies.length / (double) seconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0,
+                total.errors);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.worldfirst.fxdashboard.benchmark;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import com.worldfirst.fxdashboard.service.FXRiskService;
+import com.worldfirst.fxdashboard.service.RiskAssessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level hot paths over a synthetic book.
+ *
+ * Requires the docker-compose Postgres: {@code docker compose up -d}, then run the
+ * jmh source set, e.g. {@code java -jar target/benchmarks.jar FXRiskServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FXRiskServiceBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int positions;
+
+    @Param({"1000000"})
+    public int ticks;
+
+    private BenchmarkDatabase database;
+    private FXRiskService fxRiskService;
+    private RiskAssessor riskAssessor;
+    private List<CurrencyPosition> book;
+    private LocalDateTime asOf;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(positions, ticks);
+        fxRiskService = database.getBean(FXRiskService.class);
+        riskAssessor = database.getBean(RiskAssessor.class);
+        book = fxRiskService.getAllPositions();
+        asOf = LocalDateTime.now();  // After every seeded tick, so all currencies have a rate
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<CurrencyPosition> getAllPositions() {
+        return fxRiskService.getAllPositions();
+    }
+
+    // Repeat valuations at one time, as month-end reporting makes them; compare with getAllPositions
+    @Benchmark
+    public List<CurrencyPosition> getAllPositionsAsOf() {
+        return fxRiskService.getAllPositions(asOf);
+    }
+
+    @Benchmark
+    public List<RiskAlert> generateRiskAlerts() {
+        return fxRiskService.generateRiskAlerts();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public RiskLevel calculateRiskLevel() {
+        cursor = (cursor + 1) % book.size();
+        return riskAssessor.calculateRiskLevel(book.get(cursor));
+    }
+}
@@ -0,0 +1,65 @@
+package com.worldfirst.fxdashboard.benchmark;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw exchange_rates queries, bypassing RateCache, so storage and index changes
+ * can be compared directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateRepositoryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int pairs;
+
+    @Param({"1000000", "5000000"})
+    public int ticks;
+
+    @Param({"60"})
+    public int rangeMinutes;
+
+    private BenchmarkDatabase database;
+    private RateRepository rateRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(pairs, ticks);
+        rateRepository = database.getBean(RateRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<ExchangeRate> findLatestRate() {
+        return rateRepository.findLatestRate(randomPair());
+    }
+
+    @Benchmark
+    public List<ExchangeRate> findRatesByTimeRange() {
+        long latestEndMinutes = BenchmarkDatabase.HISTORY_WINDOW.toMinutes() - rangeMinutes;
+        LocalDateTime end = LocalDateTime.now()
+                .minusMinutes(ThreadLocalRandom.current().nextLong(0, latestEndMinutes));
+        return rateRepository.findRatesByTimeRange(randomPair(), end.minusMinutes(rangeMinutes), end);
+    }
+
+    private String randomPair() {
+        List<String> currencies = database.getCurrencies();
+        return database.pairFor(currencies.get(ThreadLocalRandom.current().nextInt(currencies.size())));
+    }
+}
@@ -0,0 +1,123 @@
+package com.worldfirst.fxdashboard.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.worldfirst.fxdashboard.codec.ColumnarCodec;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of the JSON and columnar wire formats over synthetic rate history
+ * and position books. Payload sizes are printed at setup, since bytes on the wire
+ * matter as much as CPU. No database needed:
+ * {@code java -jar target/benchmarks.jar SerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<ExchangeRate> rates;
+    private List<CurrencyPosition> positions;
+    private byte[] ratesColumnar;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);  // As Spring Boot configures it
+        rates = syntheticRates(rows);
+        positions = syntheticPositions(rows);
+        ratesColumnar = ColumnarCodec.encodeRates(rates);
+
+        System.out.printf("%n%d rates: json %d bytes, columnar %d bytes%n",
+                rows, objectMapper.writeValueAsBytes(rates).length, ratesColumnar.length);
+        System.out.printf("%d positions: json %d bytes, columnar %d bytes%n",
+                rows, objectMapper.writeValueAsBytes(positions).length,
+                ColumnarCodec.encodePositions(positions).length);
+    }
+
+    @Benchmark
+    public byte[] ratesJson() throws Exception {
+        return objectMapper.writeValueAsBytes(rates);
+    }
+
+    @Benchmark
+    public byte[] ratesColumnar() {
+        return ColumnarCodec.encodeRates(rates);
+    }
+
+    @Benchmark
+    public List<ExchangeRate> ratesColumnarDecode() {
+        return ColumnarCodec.decodeRates(ratesColumnar);
+    }
+
+    @Benchmark
+    public byte[] positionsJson() throws Exception {
+        return objectMapper.writeValueAsBytes(positions);
+    }
+
+    @Benchmark
+    public byte[] positionsColumnar() {
+        return ColumnarCodec.encodePositions(positions);
+    }
+
+    // Random walk ticks a few hundred milliseconds apart, newest first like the history endpoint
+    private static List<ExchangeRate> syntheticRates(int count) {
+        Random random = new Random(42);
+        LocalDateTime timestamp = LocalDateTime.now();
+        double mid = 1.2650;
+        List<ExchangeRate> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mid += random.nextGaussian() * 0.0001;
+            ExchangeRate rate = new ExchangeRate();
+            rate.setId((long) (count - i));
+            rate.setCurrencyPair("GBPUSD");
+            rate.setRate(BigDecimal.valueOf(mid).setScale(6, RoundingMode.HALF_EVEN));
+            rate.setBid(BigDecimal.valueOf(mid - 0.00005).setScale(6, RoundingMode.HALF_EVEN));
+            rate.setAsk(BigDecimal.valueOf(mid + 0.00005).setScale(6, RoundingMode.HALF_EVEN));
+            rate.setTimestamp(timestamp);
+            rate.setSource("SIMULATOR");
+            rate.setVolatilityIndex(BigDecimal.valueOf(0.08 + random.nextDouble() * 0.01).setScale(4, RoundingMode.HALF_EVEN));
+            result.add(rate);
+            timestamp = timestamp.minusNanos(100_000_000L + random.nextInt(400_000_000));
+        }
+        return result;
+    }
+
+    private static List<CurrencyPosition> syntheticPositions(int count) {
+        Random random = new Random(7);
+        LocalDateTime now = LocalDateTime.now();
+        List<CurrencyPosition> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CurrencyPosition position = new CurrencyPosition();
+            position.setCurrency(String.format("C%02d", i % 100));
+            position.setBalance(BigDecimal.valueOf(random.nextInt(10_000_000), 2));
+            position.setPendingIncome(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            position.setPendingPayments(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            position.setRiskLevel(RiskLevel.values()[random.nextInt(RiskLevel.values().length)]);
+            position.setCurrentRate(BigDecimal.valueOf(0.5 + random.nextDouble()).setScale(6, RoundingMode.HALF_EVEN));
+            position.setRateTimestamp(now);
+            position.setLastUpdated(now.minusMinutes(random.nextInt(600)));
+            result.add(position);
+        }
+        return result;
+    }
+}
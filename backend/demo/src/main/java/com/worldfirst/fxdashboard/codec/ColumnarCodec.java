@@ -0,0 +1,346 @@
+package com.worldfirst.fxdashboard.codec;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compact column-oriented binary encoding of rates and positions.
+ *
+ * A payload is the magic "FXC1", a type byte and the row count, followed by one
+ * block per field. Every block starts with a null bitmap. Numbers are written as
+ * zigzag varints of the delta from the previous non-null value in the column:
+ * decimals as unscaled longs at a per-column scale byte, timestamps as UTC epoch
+ * microseconds. Strings and enums go through a per-column dictionary. Consecutive
+ * ticks differ by a few pips and milliseconds, so most values take one or two bytes.
+ *
+ * Decoding checks every count and length read from the payload against the bytes
+ * left before allocating for it, since each row takes at least a byte in every
+ * string column, and rejects payloads of more than the caller's maximum rows.
+ */
+public final class ColumnarCodec {
+    private static final int MAGIC = 0x46584331;  // "FXC1"
+    private static final byte TYPE_RATES = 1;
+    private static final byte TYPE_POSITIONS = 2;
+    private static final int MAX_SCALE = 18;
+
+    private ColumnarCodec() {
+    }
+
+    public static byte[] encodeRates(List<ExchangeRate> rates) {
+        Output out = new Output(16 + rates.size() * 16);
+        out.writeHeader(TYPE_RATES, rates.size());
+        out.writeLongs(rates, ExchangeRate::getId);
+        out.writeStrings(rates, ExchangeRate::getCurrencyPair);
+        out.writeDecimals(rates, ExchangeRate::getRate);
+        out.writeDecimals(rates, ExchangeRate::getBid);
+        out.writeDecimals(rates, ExchangeRate::getAsk);
+        out.writeTimestamps(rates, ExchangeRate::getTimestamp);
+        out.writeStrings(rates, ExchangeRate::getSource);
+        out.writeDecimals(rates, ExchangeRate::getVolatilityIndex);
+        return out.toByteArray();
+    }
+
+    public static List<ExchangeRate> decodeRates(byte[] data) {
+        return decodeRates(data, Integer.MAX_VALUE);
+    }
+
+    public static List<ExchangeRate> decodeRates(byte[] data, int maxRows) {
+        Input in = new Input(data, maxRows);
+        List<ExchangeRate> rates = in.readRows(TYPE_RATES, ExchangeRate::new);
+        in.readLongs(rates, ExchangeRate::setId);
+        in.readStrings(rates, ExchangeRate::setCurrencyPair);
+        in.readDecimals(rates, ExchangeRate::setRate);
+        in.readDecimals(rates, ExchangeRate::setBid);
+        in.readDecimals(rates, ExchangeRate::setAsk);
+        in.readTimestamps(rates, ExchangeRate::setTimestamp);
+        in.readStrings(rates, ExchangeRate::setSource);
+        in.readDecimals(rates, ExchangeRate::setVolatilityIndex);
+        return rates;
+    }
+
+    public static byte[] encodePositions(List<CurrencyPosition> positions) {
+        Output out = new Output(16 + positions.size() * 32);
+        out.writeHeader(TYPE_POSITIONS, positions.size());
+        out.writeStrings(positions, CurrencyPosition::getCurrency);
+        out.writeDecimals(positions, CurrencyPosition::getBalance);
+        out.writeDecimals(positions, CurrencyPosition::getPendingIncome);
+        out.writeDecimals(positions, CurrencyPosition::getPendingPayments);
+        out.writeStrings(positions, position -> position.getRiskLevel() == null ? null : position.getRiskLevel().name());
+        out.writeDecimals(positions, CurrencyPosition::getCurrentRate);
+        out.writeTimestamps(positions, CurrencyPosition::getRateTimestamp);
+        out.writeTimestamps(positions, CurrencyPosition::getLastUpdated);
+        return out.toByteArray();
+    }
+
+    public static List<CurrencyPosition> decodePositions(byte[] data) {
+        return decodePositions(data, Integer.MAX_VALUE);
+    }
+
+    public static List<CurrencyPosition> decodePositions(byte[] data, int maxRows) {
+        Input in = new Input(data, maxRows);
+        List<CurrencyPosition> positions = in.readRows(TYPE_POSITIONS, CurrencyPosition::new);
+        in.readStrings(positions, CurrencyPosition::setCurrency);
+        in.readDecimals(positions, CurrencyPosition::setBalance);
+        in.readDecimals(positions, CurrencyPosition::setPendingIncome);
+        in.readDecimals(positions, CurrencyPosition::setPendingPayments);
+        in.readStrings(positions, (position, level) -> position.setRiskLevel(RiskLevel.valueOf(level)));
+        in.readDecimals(positions, CurrencyPosition::setCurrentRate);
+        in.readTimestamps(positions, CurrencyPosition::setRateTimestamp);
+        in.readTimestamps(positions, CurrencyPosition::setLastUpdated);
+        return positions;
+    }
+
+    /**
+     * Decodes a payload of either row type, as its header says.
+     */
+    public static List<?> decode(byte[] data, int maxRows) {
+        if (data.length < 5) {
+            throw new IllegalArgumentException("Truncated columnar payload");
+        }
+        return data[4] == TYPE_RATES ? decodeRates(data, maxRows) : decodePositions(data, maxRows);
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC);
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        Output(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeHeader(byte type, int rows) {
+            ensureCapacity(5);
+            buffer[position++] = (byte) (MAGIC >>> 24);
+            buffer[position++] = (byte) (MAGIC >>> 16);
+            buffer[position++] = (byte) (MAGIC >>> 8);
+            buffer[position++] = (byte) MAGIC;
+            buffer[position++] = type;
+            writeVarint(rows);
+        }
+
+        <T> void writeLongs(List<T> rows, Function<T, Long> field) {
+            writeNullBitmap(rows, field);
+            long previous = 0;
+            for (T row : rows) {
+                Long value = field.apply(row);
+                if (value != null) {
+                    writeVarint(zigzag(value - previous));
+                    previous = value;
+                }
+            }
+        }
+
+        <T> void writeDecimals(List<T> rows, Function<T, BigDecimal> field) {
+            int scale = 0;
+            for (T row : rows) {
+                BigDecimal value = field.apply(row);
+                if (value != null) {
+                    scale = Math.max(scale, value.scale());
+                }
+            }
+            if (scale > MAX_SCALE) {
+                throw new IllegalArgumentException("Decimal scale " + scale + " exceeds " + MAX_SCALE);
+            }
+            int columnScale = scale;
+            ensureCapacity(1);
+            buffer[position++] = (byte) columnScale;
+            writeLongs(rows, row -> {
+                BigDecimal value = field.apply(row);
+                return value == null ? null : value.setScale(columnScale).unscaledValue().longValueExact();
+            });
+        }
+
+        <T> void writeTimestamps(List<T> rows, Function<T, LocalDateTime> field) {
+            writeLongs(rows, row -> {
+                LocalDateTime value = field.apply(row);
+                return value == null ? null : toEpochMicros(value);
+            });
+        }
+
+        <T> void writeStrings(List<T> rows, Function<T, String> field) {
+            Map<String, Integer> codes = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            int[] rowCodes = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                String value = field.apply(rows.get(i));
+                if (value != null) {
+                    rowCodes[i] = codes.computeIfAbsent(value, key -> {
+                        dictionary.add(key);
+                        return dictionary.size();
+                    });
+                }
+            }
+            writeVarint(dictionary.size());
+            for (String entry : dictionary) {
+                byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+            // Code 0 stands for null, so strings need no bitmap
+            for (int code : rowCodes) {
+                writeVarint(code);
+            }
+        }
+
+        private <T> void writeNullBitmap(List<T> rows, Function<T, ?> field) {
+            int bytes = (rows.size() + 7) / 8;
+            ensureCapacity(bytes);
+            for (int i = 0; i < rows.size(); i++) {
+                if (field.apply(rows.get(i)) == null) {
+                    buffer[position + i / 8] |= (byte) (1 << (i % 8));
+                }
+            }
+            position += bytes;
+        }
+
+        private void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+        private final ByteBuffer buffer;
+        private final int maxRows;
+        private int rows;
+
+        Input(byte[] data, int maxRows) {
+            this.buffer = ByteBuffer.wrap(data);
+            this.maxRows = maxRows;
+        }
+
+        <T> List<T> readRows(byte expectedType, Supplier<T> factory) {
+            try {
+                if (buffer.getInt() != MAGIC || buffer.get() != expectedType) {
+                    throw new IllegalArgumentException("Not a columnar payload of the expected type");
+                }
+                rows = readLength();
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated columnar payload", e);
+            }
+            if (rows > maxRows) {
+                throw new IllegalArgumentException("Columnar payload has " + rows + " rows, more than " + maxRows);
+            }
+            List<T> result = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                result.add(factory.get());
+            }
+            return result;
+        }
+
+        <T> void readLongs(List<T> target, BiConsumer<T, Long> setter) {
+            byte[] nulls = new byte[(rows + 7) / 8];
+            buffer.get(nulls);
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                if ((nulls[i / 8] & (1 << (i % 8))) != 0) {
+                    continue;
+                }
+                previous += unzigzag(readVarint());
+                setter.accept(target.get(i), previous);
+            }
+        }
+
+        <T> void readDecimals(List<T> target, BiConsumer<T, BigDecimal> setter) {
+            int scale = buffer.get();
+            readLongs(target, (row, unscaled) -> setter.accept(row, new BigDecimal(BigInteger.valueOf(unscaled), scale)));
+        }
+
+        <T> void readTimestamps(List<T> target, BiConsumer<T, LocalDateTime> setter) {
+            readLongs(target, (row, micros) -> setter.accept(row, fromEpochMicros(micros)));
+        }
+
+        <T> void readStrings(List<T> target, BiConsumer<T, String> setter) {
+            int size = readLength();
+            String[] dictionary = new String[size + 1];
+            for (int i = 1; i <= size; i++) {
+                byte[] bytes = new byte[readLength()];
+                buffer.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < rows; i++) {
+                long code = readVarint();
+                if (code < 0 || code > size) {
+                    throw new IllegalArgumentException("Dictionary code " + code + " out of range");
+                }
+                if (code != 0) {
+                    setter.accept(target.get(i), dictionary[(int) code]);
+                }
+            }
+        }
+
+        // A count or length, each unit of which takes at least one of the bytes left
+        private int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Length " + length + " exceeds the " + buffer.remaining()
+                        + " bytes left in the columnar payload");
+            }
+            return (int) length;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.worldfirst.fxdashboard.codec;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writes lists of rates or positions as {@link ColumnarCodec} payloads for clients
+ * that send {@code Accept: application/x-fx-columnar}, and reads request bodies
+ * sent with that Content-Type, such as batches of ticks for ingestion. A malformed
+ * payload, one of the other row type, or one of more than the maximum rows is
+ * rejected as unreadable (400).
+ */
+public class ColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+    public static final String MEDIA_TYPE_VALUE = "application/x-fx-columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    private final int maxReadRows;
+
+    public ColumnarHttpMessageConverter(int maxReadRows) {
+        super(MEDIA_TYPE);
+        this.maxReadRows = maxReadRows;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    // A declared element type must be one the codec produces
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return elementType(type) != null && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    // Only the declared element type tells rates and positions apart
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return elementType(type) != null && canWrite(mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(List<?> rows, Type type, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = elementType(type) == ExchangeRate.class
+                ? ColumnarCodec.encodeRates((List<ExchangeRate>) rows)
+                : ColumnarCodec.encodePositions((List<CurrencyPosition>) rows);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+
+    @Override
+    public List<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        return decode(inputMessage, () -> elementType(type) == ExchangeRate.class
+                ? ColumnarCodec.decodeRates(body, maxReadRows)
+                : ColumnarCodec.decodePositions(body, maxReadRows));
+    }
+
+    // Without a declared element type the payload header decides
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        return decode(inputMessage, () -> ColumnarCodec.decode(body, maxReadRows));
+    }
+
+    private static List<?> decode(HttpInputMessage inputMessage, Supplier<List<?>> decoder) {
+        try {
+            return decoder.get();
+        } catch (RuntimeException e) {
+            throw new HttpMessageNotReadableException("Malformed columnar payload: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    private static Class<?> elementType(Type type) {
+        if (type == null) {
+            return null;
+        }
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element == ExchangeRate.class || element == CurrencyPosition.class ? element : null;
+    }
+}
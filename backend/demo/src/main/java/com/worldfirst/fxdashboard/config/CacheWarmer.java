@@ -0,0 +1,79 @@
+package com.worldfirst.fxdashboard.config;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.CurrencyPositionRepository;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import com.worldfirst.fxdashboard.service.CrossRateEngine;
+import com.worldfirst.fxdashboard.service.RiskAlertEngine;
+import com.worldfirst.fxdashboard.service.ValueAtRiskEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads everything the in-memory engines start from. The latest rates and the
+ * position book are read concurrently; the engines are then built from them in
+ * dependency order: cross rates, Value-at-Risk, alerts. Readiness is only
+ * published after ApplicationReadyEvent listeners return, so the app does not
+ * accept traffic on cold caches.
+ */
+@Slf4j
+@Component
+public class CacheWarmer {
+    private final RateRepository rateRepository;
+    private final CurrencyPositionRepository positionRepository;
+    private final RateCache rateCache;
+    private final CrossRateEngine crossRateEngine;
+    private final ValueAtRiskEngine valueAtRiskEngine;
+    private final RiskAlertEngine riskAlertEngine;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    // Qualified because the scheduler is an AsyncTaskExecutor too
+    public CacheWarmer(RateRepository rateRepository,
+                       CurrencyPositionRepository positionRepository,
+                       RateCache rateCache,
+                       CrossRateEngine crossRateEngine,
+                       ValueAtRiskEngine valueAtRiskEngine,
+                       RiskAlertEngine riskAlertEngine,
+                       @Qualifier("applicationTaskExecutor") AsyncTaskExecutor applicationTaskExecutor) {
+        this.rateRepository = rateRepository;
+        this.positionRepository = positionRepository;
+        this.rateCache = rateCache;
+        this.crossRateEngine = crossRateEngine;
+        this.valueAtRiskEngine = valueAtRiskEngine;
+        this.riskAlertEngine = riskAlertEngine;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    // Before other ready listeners that read from the cache
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmCaches() {
+        long start = System.nanoTime();
+        CompletableFuture<List<ExchangeRate>> latestRates =
+                CompletableFuture.supplyAsync(rateRepository::findAllLatestRates, applicationTaskExecutor);
+        CompletableFuture<List<CurrencyPosition>> positions =
+                CompletableFuture.supplyAsync(() -> positionRepository.findAll(), applicationTaskExecutor);
+
+        rateCache.warm(latestRates.join());
+        crossRateEngine.rebuild(rateCache.snapshot());
+        List<CurrencyPosition> book = positions.join();
+        valueAtRiskEngine.initialize(book);
+        riskAlertEngine.initialize(book);
+
+        log.info("Caches warmed in {} ms; ready {} ms after JVM start",
+                (System.nanoTime() - start) / 1_000_000,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
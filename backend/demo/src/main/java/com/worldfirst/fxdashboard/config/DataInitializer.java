@@ -1,12 +1,16 @@
 package com.worldfirst.fxdashboard.config;
 
+import com.worldfirst.fxdashboard.repository.RateCandleRepository;
+import com.worldfirst.fxdashboard.repository.RatePartitionManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -16,126 +20,86 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
     private final JdbcTemplate jdbcTemplate;
+    private final SchemaMigrator schemaMigrator;
+    private final RateCandleRepository rateCandleRepository;
+    private final RatePartitionManager ratePartitionManager;
 
+    @Value("${fx.schema.reset-on-startup:false}")
+    private boolean resetOnStartup;
+
+    @Value("${fx.seed.enabled:false}")
+    private boolean seedEnabled;
+
+    /**
+     * Migrates the schema in place instead of recreating it, so history survives
+     * restarts. Mock data is only loaded when fx.seed.enabled is set and the tables
+     * are empty.
+     */
     @Override
     public void run(String... args) {
-        log.info("Initializing mock data...");
-        dropTablesIfExist();
-        createTables();
-        initializeCurrencyPositions();
-        initializeExchangeRates();
-        log.info("Data initialization completed");
+        long start = System.nanoTime();
+        if (resetOnStartup) {
+            schemaMigrator.reset();
+        }
+        int applied = schemaMigrator.migrate();
+        ratePartitionManager.createPartitions();
+        long migratedAt = System.nanoTime();
+
+        if (seedEnabled) {
+            seedIfEmpty();
+        }
+        long end = System.nanoTime();
+        log.info("Schema ready in {} ms ({} migrations applied), seeding took {} ms",
+                (migratedAt - start) / 1_000_000, applied, (end - migratedAt) / 1_000_000);
     }
 
-    private void dropTablesIfExist() {
-        log.info("Dropping existing tables if they exist...");
-        jdbcTemplate.execute("DROP TABLE IF EXISTS currency_positions CASCADE");
-        jdbcTemplate.execute("DROP TABLE IF EXISTS exchange_rates CASCADE");
+    private void seedIfEmpty() {
+        boolean seeded = false;
+        if (isEmpty("currency_positions")) {
+            initializeCurrencyPositions();
+            seeded = true;
+        }
+        if (isEmpty("exchange_rates")) {
+            initializeExchangeRates();
+            rateCandleRepository.rebuildAll();
+            seeded = true;
+        }
+        if (!seeded) {
+            log.info("Tables already hold data, skipping seed");
+        }
     }
 
-    private void createTables() {
-        log.info("Creating tables...");
-
-        jdbcTemplate.execute("""
-            CREATE TABLE currency_positions (
-                id BIGSERIAL PRIMARY KEY,
-                currency VARCHAR(3) NOT NULL,
-                balance DECIMAL(19,4) NOT NULL,
-                pending_income DECIMAL(19,4),
-                pending_payments DECIMAL(19,4),
-                risk_level VARCHAR(10) NOT NULL,
-                current_rate DECIMAL(10,6),
-                rate_timestamp TIMESTAMP,
-                last_updated TIMESTAMP NOT NULL
-            )
-        """);
-
-        jdbcTemplate.execute("""
-            CREATE TABLE exchange_rates (
-                id BIGSERIAL PRIMARY KEY,
-                currency_pair VARCHAR(7) NOT NULL,
-                rate DECIMAL(10,6) NOT NULL,
-                bid DECIMAL(10,6),
-                ask DECIMAL(10,6),
-                timestamp TIMESTAMP NOT NULL,
-                source VARCHAR(50),
-                volatility_index DECIMAL(10,6)
-            )
-        """);
-
-        // Add indexes for better performance
-        jdbcTemplate.execute("CREATE INDEX idx_currency_positions_currency ON currency_positions(currency)");
-        jdbcTemplate.execute("CREATE INDEX idx_exchange_rates_currency_pair ON exchange_rates(currency_pair)");
-        jdbcTemplate.execute("CREATE INDEX idx_exchange_rates_timestamp ON exchange_rates(timestamp)");
-
-        log.info("Tables created successfully");
+    private boolean isEmpty(String table) {
+        return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + table + ")", Boolean.class));
     }
 
     private void initializeCurrencyPositions() {
         log.info("Initializing currency positions...");
 
         String sql = """
-            INSERT INTO currency_positions 
-            (currency, balance, pending_income, pending_payments, risk_level, current_rate, rate_timestamp, last_updated) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO currency_positions
+            (currency, balance, pending_income, pending_payments, risk_level, current_rate, rate_timestamp, last_updated)
+            SELECT seed.*, now(), now()
+            FROM unnest(?::varchar[], ?::numeric[], ?::numeric[], ?::numeric[], ?::varchar[], ?::numeric[])
+                AS seed(currency, balance, pending_income, pending_payments, risk_level, current_rate)
         """;
 
-        LocalDateTime now = LocalDateTime.now();
         List<Object[]> positionData = Arrays.asList(
-                new Object[] {
-                        "USD",
-                        new BigDecimal("1000000.00"),
-                        new BigDecimal("50000.00"),
-                        new BigDecimal("30000.00"),
-                        "HIGH",
-                        new BigDecimal("1.0"),
-                        now,  // rate_timestamp
-                        now   // last_updated
-                },
-                new Object[] {
-                        "EUR",
-                        new BigDecimal("800000.00"),
-                        new BigDecimal("25000.00"),
-                        new BigDecimal("75000.00"),
-                        "MEDIUM",
-                        new BigDecimal("0.85"),
-                        now,
-                        now
-                },
-                new Object[] {
-                        "GBP",
-                        new BigDecimal("600000.00"),
-                        new BigDecimal("15000.00"),
-                        new BigDecimal("45000.00"),
-                        "LOW",
-                        new BigDecimal("0.79"),
-                        now,
-                        now
-                },
-                new Object[] {
-                        "JPY",
-                        new BigDecimal("50000000.00"),
-                        new BigDecimal("1000000.00"),
-                        new BigDecimal("2000000.00"),
-                        "MEDIUM",
-                        new BigDecimal("150.0"),
-                        now,
-                        now
-                },
-                new Object[] {
-                        "CNY",
-                        new BigDecimal("2000000.00"),
-                        new BigDecimal("100000.00"),
-                        new BigDecimal("300000.00"),
-                        "HIGH",
-                        new BigDecimal("7.2"),
-                        now,
-                        now
-                }
+                new Object[] {"USD", new BigDecimal("1000000.00"), new BigDecimal("50000.00"),
+                        new BigDecimal("30000.00"), "HIGH", new BigDecimal("1.0")},
+                new Object[] {"EUR", new BigDecimal("800000.00"), new BigDecimal("25000.00"),
+                        new BigDecimal("75000.00"), "MEDIUM", new BigDecimal("0.85")},
+                new Object[] {"GBP", new BigDecimal("600000.00"), new BigDecimal("15000.00"),
+                        new BigDecimal("45000.00"), "LOW", new BigDecimal("0.79")},
+                new Object[] {"JPY", new BigDecimal("50000000.00"), new BigDecimal("1000000.00"),
+                        new BigDecimal("2000000.00"), "MEDIUM", new BigDecimal("150.0")},
+                new Object[] {"CNY", new BigDecimal("2000000.00"), new BigDecimal("100000.00"),
+                        new BigDecimal("300000.00"), "HIGH", new BigDecimal("7.2")}
         );
 
         try {
-            jdbcTemplate.batchUpdate(sql, positionData);
+            insertColumns(sql, positionData, "varchar", "numeric", "numeric", "numeric", "varchar", "numeric");
             log.info("Initialized {} currency positions", positionData.size());
         } catch (Exception e) {
             log.error("Error initializing currency positions: {}", e.getMessage(), e);
@@ -147,77 +111,51 @@ public class DataInitializer implements CommandLineRunner {
         log.info("Initializing exchange rates...");
 
         String sql = """
-            INSERT INTO exchange_rates 
-            (currency_pair, rate, bid, ask, timestamp, source, volatility_index) 
-            VALUES (?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO exchange_rates
+            (currency_pair, rate, bid, ask, timestamp, source, volatility_index)
+            SELECT * FROM unnest(?::varchar[], ?::numeric[], ?::numeric[], ?::numeric[],
+                                 ?::timestamp[], ?::varchar[], ?::numeric[])
         """;
 
-        LocalDateTime now = LocalDateTime.now();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp fiveMinutesAgo = Timestamp.valueOf(LocalDateTime.now().minusMinutes(5));
         List<Object[]> rateData = Arrays.asList(
                 // Current rates
-                new Object[] {
-                        "EURUSD",
-                        new BigDecimal("1.0850"),
-                        new BigDecimal("1.0848"),
-                        new BigDecimal("1.0852"),
-                        now,
-                        "MOCK_DATA",
-                        new BigDecimal("0.12")
-                },
-                new Object[] {
-                        "GBPUSD",
-                        new BigDecimal("1.2650"),
-                        new BigDecimal("1.2648"),
-                        new BigDecimal("1.2652"),
-                        now,
-                        "MOCK_DATA",
-                        new BigDecimal("0.15")
-                },
-                new Object[] {
-                        "USDJPY",
-                        new BigDecimal("150.50"),
-                        new BigDecimal("150.48"),
-                        new BigDecimal("150.52"),
-                        now,
-                        "MOCK_DATA",
-                        new BigDecimal("0.18")
-                },
-                new Object[] {
-                        "USDCNY",
-                        new BigDecimal("7.2010"),
-                        new BigDecimal("7.2008"),
-                        new BigDecimal("7.2012"),
-                        now,
-                        "MOCK_DATA",
-                        new BigDecimal("0.08")
-                },
+                new Object[] {"EURUSD", new BigDecimal("1.0850"), new BigDecimal("1.0848"),
+                        new BigDecimal("1.0852"), now, "MOCK_DATA", new BigDecimal("0.12")},
+                new Object[] {"GBPUSD", new BigDecimal("1.2650"), new BigDecimal("1.2648"),
+                        new BigDecimal("1.2652"), now, "MOCK_DATA", new BigDecimal("0.15")},
+                new Object[] {"USDJPY", new BigDecimal("150.50"), new BigDecimal("150.48"),
+                        new BigDecimal("150.52"), now, "MOCK_DATA", new BigDecimal("0.18")},
+                new Object[] {"USDCNY", new BigDecimal("7.2010"), new BigDecimal("7.2008"),
+                        new BigDecimal("7.2012"), now, "MOCK_DATA", new BigDecimal("0.08")},
                 // Historical rates
-                new Object[] {
-                        "EURUSD",
-                        new BigDecimal("1.0855"),
-                        new BigDecimal("1.0853"),
-                        new BigDecimal("1.0857"),
-                        now.minusMinutes(5),
-                        "MOCK_DATA",
-                        new BigDecimal("0.11")
-                },
-                new Object[] {
-                        "GBPUSD",
-                        new BigDecimal("1.2645"),
-                        new BigDecimal("1.2643"),
-                        new BigDecimal("1.2647"),
-                        now.minusMinutes(5),
-                        "MOCK_DATA",
-                        new BigDecimal("0.14")
-                }
+                new Object[] {"EURUSD", new BigDecimal("1.0855"), new BigDecimal("1.0853"),
+                        new BigDecimal("1.0857"), fiveMinutesAgo, "MOCK_DATA", new BigDecimal("0.11")},
+                new Object[] {"GBPUSD", new BigDecimal("1.2645"), new BigDecimal("1.2643"),
+                        new BigDecimal("1.2647"), fiveMinutesAgo, "MOCK_DATA", new BigDecimal("0.14")}
         );
 
         try {
-            jdbcTemplate.batchUpdate(sql, rateData);
+            insertColumns(sql, rateData,
+                    "varchar", "numeric", "numeric", "numeric", "timestamp", "varchar", "numeric");
             log.info("Initialized {} exchange rates", rateData.size());
         } catch (Exception e) {
             log.error("Error initializing exchange rates: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to initialize exchange rates", e);
         }
     }
-}
\ No newline at end of file
+
+    // Turns rows into one array per column so the whole seed is a single INSERT ... SELECT FROM unnest
+    private void insertColumns(String sql, List<Object[]> rows, String... columnTypes) {
+        jdbcTemplate.update(sql, ps -> {
+            for (int column = 0; column < columnTypes.length; column++) {
+                Object[] values = new Object[rows.size()];
+                for (int row = 0; row < rows.size(); row++) {
+                    values[row] = rows.get(row)[column];
+                }
+                ps.setArray(column + 1, ps.getConnection().createArrayOf(columnTypes[column], values));
+            }
+        });
+    }
+}
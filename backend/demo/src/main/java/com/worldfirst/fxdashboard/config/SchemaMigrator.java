@@ -0,0 +1,267 @@
+package com.worldfirst.fxdashboard.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Versioned, forward-only schema migrations recorded in schema_version. Pending
+ * migrations run in one transaction under an advisory lock, so concurrent
+ * instances starting together apply each migration once and a failed migration
+ * leaves the schema as it was. Migrations are append-only: never edit one that
+ * has shipped, add a new version instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrator {
+    private static final long MIGRATION_LOCK_ID = 0x46584D4947L;  // "FXMIG"
+    private static final int CLIENT_POSITION_PARTITIONS = 32;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            // Exactly what the old drop-and-recreate DataInitializer created, so existing
+            // unversioned databases can be baselined here
+            new Migration(1, "Initial positions and rates", List.of(
+                    """
+                    CREATE TABLE currency_positions (
+                        id BIGSERIAL PRIMARY KEY,
+                        currency VARCHAR(3) NOT NULL,
+                        balance DECIMAL(19,4) NOT NULL,
+                        pending_income DECIMAL(19,4),
+                        pending_payments DECIMAL(19,4),
+                        risk_level VARCHAR(10) NOT NULL,
+                        current_rate DECIMAL(10,6),
+                        rate_timestamp TIMESTAMP,
+                        last_updated TIMESTAMP NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE exchange_rates (
+                        id BIGSERIAL PRIMARY KEY,
+                        currency_pair VARCHAR(7) NOT NULL,
+                        rate DECIMAL(10,6) NOT NULL,
+                        bid DECIMAL(10,6),
+                        ask DECIMAL(10,6),
+                        timestamp TIMESTAMP NOT NULL,
+                        source VARCHAR(50),
+                        volatility_index DECIMAL(10,6)
+                    )
+                    """,
+                    "CREATE INDEX idx_currency_positions_currency ON currency_positions(currency)",
+                    "CREATE INDEX idx_exchange_rates_currency_pair ON exchange_rates(currency_pair)",
+                    "CREATE INDEX idx_exchange_rates_timestamp ON exchange_rates(timestamp)"
+            )),
+            new Migration(2, "Position versions for optimistic updates", List.of(
+                    "ALTER TABLE currency_positions ADD COLUMN version BIGINT NOT NULL DEFAULT 0"
+            )),
+            // Daily range partitions, created and expired by RatePartitionManager. Existing
+            // ticks are copied across with their ids into partitions made for their days.
+            new Migration(3, "Partition exchange_rates by day", List.of(
+                    "ALTER TABLE exchange_rates RENAME TO exchange_rates_unpartitioned",
+                    "ALTER TABLE exchange_rates_unpartitioned RENAME CONSTRAINT exchange_rates_pkey TO exchange_rates_unpartitioned_pkey",
+                    "ALTER SEQUENCE exchange_rates_id_seq RENAME TO exchange_rates_unpartitioned_id_seq",
+                    """
+                    CREATE TABLE exchange_rates (
+                        id BIGSERIAL,
+                        currency_pair VARCHAR(7) NOT NULL,
+                        rate DECIMAL(10,6) NOT NULL,
+                        bid DECIMAL(10,6),
+                        ask DECIMAL(10,6),
+                        timestamp TIMESTAMP NOT NULL,
+                        source VARCHAR(50),
+                        volatility_index DECIMAL(10,6),
+                        PRIMARY KEY (id, timestamp)
+                    ) PARTITION BY RANGE (timestamp)
+                    """,
+                    """
+                    DO $$
+                    DECLARE
+                        day DATE;
+                    BEGIN
+                        FOR day IN SELECT DISTINCT timestamp::date FROM exchange_rates_unpartitioned LOOP
+                            EXECUTE format('CREATE TABLE %I PARTITION OF exchange_rates FOR VALUES FROM (%L) TO (%L)',
+                                    'exchange_rates_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+                        END LOOP;
+                    END $$
+                    """,
+                    """
+                    INSERT INTO exchange_rates (
+                        id, currency_pair, rate, bid, ask, timestamp, source, volatility_index
+                    )
+                    SELECT id, currency_pair, rate, bid, ask, timestamp, source, volatility_index
+                    FROM exchange_rates_unpartitioned
+                    """,
+                    "SELECT setval('exchange_rates_id_seq', (SELECT coalesce(max(id), 0) + 1 FROM exchange_rates), false)",
+                    "DROP TABLE exchange_rates_unpartitioned",
+                    // Covers every column, so the SELECT * latest-rate and range lookups can be
+                    // index-only scans wherever the visibility map is current
+                    """
+                    CREATE INDEX idx_exchange_rates_pair_timestamp
+                    ON exchange_rates(currency_pair, timestamp DESC)
+                    INCLUDE (id, rate, bid, ask, source, volatility_index)
+                    """
+            )),
+            // OHLC rollups maintained by RateCandleRepository, backfilled from existing ticks
+            new Migration(4, "Rate candles", concat(
+                    """
+                    CREATE TABLE exchange_rate_candles (
+                        currency_pair VARCHAR(7) NOT NULL,
+                        interval_code VARCHAR(3) NOT NULL,
+                        bucket_start TIMESTAMP NOT NULL,
+                        open DECIMAL(10,6) NOT NULL,
+                        high DECIMAL(10,6) NOT NULL,
+                        low DECIMAL(10,6) NOT NULL,
+                        close DECIMAL(10,6) NOT NULL,
+                        open_time TIMESTAMP NOT NULL,
+                        close_time TIMESTAMP NOT NULL,
+                        rate_sum DECIMAL(24,6) NOT NULL,
+                        tick_count BIGINT NOT NULL,
+                        PRIMARY KEY (currency_pair, interval_code, bucket_start)
+                    )
+                    """,
+                    List.of(
+                            candleBackfill("1s", "second"),
+                            candleBackfill("1m", "minute"),
+                            candleBackfill("1h", "hour"),
+                            candleBackfill("1d", "day"))
+            )),
+            // Client books, hash-partitioned so every per-client query prunes to one partition
+            new Migration(5, "Hash-partitioned client positions", concat(
+                    """
+                    CREATE TABLE client_positions (
+                        client_id VARCHAR(36) NOT NULL,
+                        account_id VARCHAR(36) NOT NULL,
+                        currency VARCHAR(3) NOT NULL,
+                        balance DECIMAL(19,4) NOT NULL,
+                        pending_income DECIMAL(19,4) NOT NULL,
+                        pending_payments DECIMAL(19,4) NOT NULL,
+                        risk_level VARCHAR(10) NOT NULL,
+                        last_updated TIMESTAMP NOT NULL,
+                        version BIGINT NOT NULL DEFAULT 0,
+                        PRIMARY KEY (client_id, account_id, currency)
+                    ) PARTITION BY HASH (client_id)
+                    """,
+                    hashPartitions("client_positions", CLIENT_POSITION_PARTITIONS)
+            )),
+            // Lets candle retention find expired buckets per interval without scanning every candle
+            new Migration(6, "Candle retention index", List.of(
+                    "CREATE INDEX idx_exchange_rate_candles_interval_bucket ON exchange_rate_candles(interval_code, bucket_start)"
+            ))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Brings the schema up to the latest version and returns the number of
+     * migrations applied.
+     */
+    public int migrate() {
+        Integer applied = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + MIGRATION_LOCK_ID + ")");
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(200) NOT NULL,
+                    applied_at TIMESTAMP NOT NULL DEFAULT now(),
+                    execution_ms BIGINT NOT NULL
+                )
+            """);
+
+            int current = currentVersion();
+            if (current == 0 && tableExists("currency_positions")) {
+                // Created by the old drop-and-recreate initializer, which is exactly version 1
+                log.info("Existing unversioned schema found, baselining at version 1");
+                record(MIGRATIONS.get(0), 0);
+                current = 1;
+            }
+
+            int count = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                migration.getStatements().forEach(jdbcTemplate::execute);
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                record(migration, elapsedMillis);
+                log.info("Applied schema migration {} ({}) in {} ms",
+                        migration.getVersion(), migration.getDescription(), elapsedMillis);
+                count++;
+            }
+            return count;
+        });
+        return applied == null ? 0 : applied;
+    }
+
+    /**
+     * Drops every table this application owns, including the version history.
+     * For disposable environments only; enabled by fx.schema.reset-on-startup.
+     */
+    public void reset() {
+        log.warn("Dropping all application tables");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS currency_positions CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS exchange_rates CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS exchange_rate_candles CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS client_positions CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS schema_version CASCADE");
+    }
+
+    private int currentVersion() {
+        Integer version = jdbcTemplate.queryForObject("SELECT max(version) FROM schema_version", Integer.class);
+        return version == null ? 0 : version;
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private void record(Migration migration, long elapsedMillis) {
+        jdbcTemplate.update(
+                "INSERT INTO schema_version (version, description, execution_ms) VALUES (?, ?, ?)",
+                migration.getVersion(), migration.getDescription(), elapsedMillis);
+    }
+
+    private static List<String> hashPartitions(String table, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(remainder -> String.format(
+                        "CREATE TABLE %1$s_h%2$02d PARTITION OF %1$s FOR VALUES WITH (MODULUS %3$d, REMAINDER %2$d)",
+                        table, remainder, count))
+                .toList();
+    }
+
+    // Literal interval codes rather than CandleInterval, so this migration never changes
+    private static String candleBackfill(String intervalCode, String postgresField) {
+        return String.format("""
+                INSERT INTO exchange_rate_candles (
+                    currency_pair, interval_code, bucket_start, open, high, low, close,
+                    open_time, close_time, rate_sum, tick_count
+                )
+                SELECT currency_pair, '%1$s', date_trunc('%2$s', timestamp),
+                       (array_agg(rate ORDER BY timestamp))[1],
+                       max(rate), min(rate),
+                       (array_agg(rate ORDER BY timestamp DESC))[1],
+                       min(timestamp), max(timestamp), sum(rate), count(*)
+                FROM exchange_rates
+                GROUP BY currency_pair, date_trunc('%2$s', timestamp)
+                """, intervalCode, postgresField);
+    }
+
+    private static List<String> concat(String first, List<String> rest) {
+        return Stream.concat(Stream.of(first), rest.stream()).toList();
+    }
+
+    @lombok.Value
+    private static class Migration {
+        int version;
+        String description;
+        List<String> statements;
+    }
+}
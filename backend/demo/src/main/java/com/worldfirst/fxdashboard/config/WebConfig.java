@@ -0,0 +1,33 @@
+package com.worldfirst.fxdashboard.config;
+
+import com.worldfirst.fxdashboard.codec.ColumnarHttpMessageConverter;
+import com.worldfirst.fxdashboard.metrics.RequestTimingInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final RequestTimingInterceptor requestTimingInterceptor;
+    private final int maxColumnarRows;
+
+    public WebConfig(RequestTimingInterceptor requestTimingInterceptor,
+                     @Value("${fx.columnar.max-rows:100000}") int maxColumnarRows) {
+        this.requestTimingInterceptor = requestTimingInterceptor;
+        this.maxColumnarRows = maxColumnarRows;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestTimingInterceptor).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ColumnarHttpMessageConverter(maxColumnarRows));
+    }
+}
@@ -0,0 +1,67 @@
+package com.worldfirst.fxdashboard.controller;
+
+import com.worldfirst.fxdashboard.model.ClientPosition;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.service.TenantRiskService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/fx/clients/{clientId}")
+@RequiredArgsConstructor
+public class ClientController {
+    private final TenantRiskService tenantRiskService;
+
+    @GetMapping("/positions")
+    public ResponseEntity<List<ClientPosition>> getPositions(@PathVariable String clientId) {
+        return ResponseEntity.ok(tenantRiskService.getPositions(clientId));
+    }
+
+    @GetMapping("/accounts/{accountId}/positions")
+    public ResponseEntity<List<ClientPosition>> getAccountPositions(
+            @PathVariable String clientId,
+            @PathVariable String accountId) {
+        return ResponseEntity.ok(tenantRiskService.getAccountPositions(clientId, accountId));
+    }
+
+    @GetMapping("/accounts/{accountId}/positions/{currency}")
+    public ResponseEntity<ClientPosition> getPosition(
+            @PathVariable String clientId,
+            @PathVariable String accountId,
+            @PathVariable String currency) {
+        return tenantRiskService.getPosition(clientId, accountId, currency.toUpperCase())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Send the version last read to guard against lost updates, or omit it to overwrite
+    @PutMapping("/accounts/{accountId}/positions/{currency}")
+    public ResponseEntity<ClientPosition> updatePosition(
+            @PathVariable String clientId,
+            @PathVariable String accountId,
+            @PathVariable String currency,
+            @RequestBody ClientPosition position) {
+        position.setClientId(clientId);
+        position.setAccountId(accountId);
+        position.setCurrency(currency.toUpperCase());
+        if (!position.isComplete()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return tenantRiskService.updatePosition(position)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();  // Unknown currency
+        }
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<List<RiskAlert>> getAlerts(@PathVariable String clientId) {
+        return ResponseEntity.ok(tenantRiskService.getAlerts(clientId));
+    }
+}
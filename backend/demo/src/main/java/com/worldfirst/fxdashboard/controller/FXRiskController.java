@@ -1,32 +1,84 @@
 package com.worldfirst.fxdashboard.controller;
 
+import com.worldfirst.fxdashboard.codec.ColumnarHttpMessageConverter;
+import com.worldfirst.fxdashboard.model.CrossRate;
 import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.PortfolioRisk;
+import com.worldfirst.fxdashboard.model.PositionUpdateRequest;
+import com.worldfirst.fxdashboard.model.PositionUpdateResult;
 import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import com.worldfirst.fxdashboard.service.DashboardStreamService;
 import com.worldfirst.fxdashboard.service.FXRiskService;
+import com.worldfirst.fxdashboard.service.ResponseCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/fx")
 @RequiredArgsConstructor
 public class FXRiskController {
     private final FXRiskService fxRiskService;
+    private final DashboardStreamService dashboardStreamService;
+    private final ResponseCache responseCache;
+
+    // Read endpoints below answer If-None-Match with 304 and otherwise serve cached JSON (see ResponseCache).
+    // With ?asOf= they value positions at historical rates instead and skip the ETag cache.
 
     @GetMapping("/positions")
-    public ResponseEntity<List<CurrencyPosition>> getAllPositions() {
+    public ResponseEntity<byte[]> getAllPositions(
+            @RequestParam(required = false) String asOf,
+            WebRequest webRequest) {
+        if (asOf != null) {
+            return asOfJson(() -> responseCache.toJson("positions", fxRiskService.getAllPositions(toServerTime(asOf))));
+        }
+        String etag = responseCache.positionsTag("positions");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return json(responseCache.getJson("positions", etag, fxRiskService::getAllPositions));
+    }
+
+    @GetMapping(value = "/positions", produces = ColumnarHttpMessageConverter.MEDIA_TYPE_VALUE)
+    public ResponseEntity<List<CurrencyPosition>> getAllPositionsColumnar(
+            @RequestParam(required = false) String asOf,
+            WebRequest webRequest) {
+        if (asOf != null) {
+            try {
+                return ResponseEntity.ok(fxRiskService.getAllPositions(toServerTime(asOf)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (webRequest.checkNotModified(responseCache.positionsTag("positions-columnar"))) {
+            return null;
+        }
         return ResponseEntity.ok(fxRiskService.getAllPositions());
     }
 
     @GetMapping("/position/{currency}")
-    public ResponseEntity<CurrencyPosition> getPosition(@PathVariable String currency) {
-        return fxRiskService.getPosition(currency)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getPosition(@PathVariable String currency, WebRequest webRequest) {
+        String resource = "position-" + currency;
+        String etag = responseCache.positionsTag(resource);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return responseCache.findJson(resource, etag, () -> fxRiskService.getPosition(currency))
+                .map(this::json)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -36,17 +88,102 @@ public class FXRiskController {
         return ResponseEntity.ok(fxRiskService.updatePosition(position));
     }
 
+    @PostMapping("/positions/bulk")
+    public ResponseEntity<List<PositionUpdateResult>> updatePositions(
+            @RequestBody List<PositionUpdateRequest> requests) {
+        return ResponseEntity.ok(fxRiskService.updatePositions(requests));
+    }
+
+    @GetMapping("/positions/versions")
+    public ResponseEntity<Map<String, Long>> getPositionVersions() {
+        return ResponseEntity.ok(fxRiskService.getPositionVersions());
+    }
+
     @GetMapping("/alerts")
-    public ResponseEntity<List<RiskAlert>> getRiskAlerts() {
-        return ResponseEntity.ok(fxRiskService.generateRiskAlerts());
+    public ResponseEntity<byte[]> getRiskAlerts(WebRequest webRequest) {
+        String etag = responseCache.alertsTag("alerts");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return json(responseCache.getJson("alerts", etag, fxRiskService::generateRiskAlerts));
+    }
+
+    @PostMapping("/alerts/{id}/acknowledge")
+    public ResponseEntity<RiskAlert> acknowledgeAlert(@PathVariable Long id) {
+        return fxRiskService.acknowledgeAlert(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/alerts/{id}/resolve")
+    public ResponseEntity<RiskAlert> resolveAlert(@PathVariable Long id) {
+        return fxRiskService.resolveAlert(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> getDashboardData() {
-        Map<String, Object> dashboard = new HashMap<>();
-        dashboard.put("positions", fxRiskService.getAllPositions());
-        dashboard.put("alerts", fxRiskService.generateRiskAlerts());
-        dashboard.put("lastUpdated", LocalDateTime.now());
-        return ResponseEntity.ok(dashboard);
-    }
-}
\ No newline at end of file
+    public ResponseEntity<byte[]> getDashboardData(
+            @RequestParam(required = false) String asOf,
+            WebRequest webRequest) {
+        if (asOf != null) {
+            return asOfJson(() -> responseCache.toJson("dashboard", fxRiskService.getDashboardData(toServerTime(asOf))));
+        }
+        String etag = responseCache.dashboardTag("dashboard");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return json(responseCache.getJson("dashboard", etag, fxRiskService::getDashboardData));
+    }
+
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        return dashboardStreamService.subscribe();
+    }
+
+    @GetMapping("/risk/var")
+    public ResponseEntity<PortfolioRisk> getPortfolioRisk() {
+        return ResponseEntity.ok(fxRiskService.getPortfolioRisk());
+    }
+
+    @GetMapping("/rate/{base}/{quote}")
+    public ResponseEntity<CrossRate> getRate(@PathVariable String base, @PathVariable String quote) {
+        return fxRiskService.getRate(base.toUpperCase(), quote.toUpperCase())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/rates/cache-stats")
+    public ResponseEntity<RateCache.Stats> getRateCacheStats() {
+        return ResponseEntity.ok(fxRiskService.getRateCacheStats());
+    }
+
+    // ISO date-time, with or without an offset. Stored timestamps are server local time,
+    // so an offset or zone is converted to it rather than dropped.
+    private static LocalDateTime toServerTime(String asOf) {
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(asOf, ZonedDateTime::from, LocalDateTime::from);
+            return parsed instanceof ZonedDateTime zoned
+                    ? zoned.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                    : (LocalDateTime) parsed;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid asOf: " + asOf, e);
+        }
+    }
+
+    // Malformed and future times, and times before a currency's first rate are client errors
+    private ResponseEntity<byte[]> asOfJson(Supplier<byte[]> body) {
+        try {
+            return json(body.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // checkNotModified has already set the ETag header
+    private ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,19 @@
+package com.worldfirst.fxdashboard.controller;
+
+import com.worldfirst.fxdashboard.model.MetricsSnapshot;
+import com.worldfirst.fxdashboard.service.MetricsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/fx/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+    private final MetricsService metricsService;
+
+    @GetMapping
+    public ResponseEntity<MetricsSnapshot> getMetrics() {
+        return ResponseEntity.ok(metricsService.getSnapshot());
+    }
+}
@@ -0,0 +1,99 @@
+package com.worldfirst.fxdashboard.controller;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.RateCandle;
+import com.worldfirst.fxdashboard.model.enums.CandleInterval;
+import com.worldfirst.fxdashboard.model.enums.ExportFormat;
+import com.worldfirst.fxdashboard.service.RateHistoryService;
+import com.worldfirst.fxdashboard.service.RateIngestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/fx/rates")
+@RequiredArgsConstructor
+public class RateController {
+    private final RateIngestionService rateIngestionService;
+    private final RateHistoryService rateHistoryService;
+
+    // JSON, or ColumnarCodec with Content-Type: application/x-fx-columnar
+    @PostMapping
+    public ResponseEntity<Map<String, Integer>> ingestRates(
+            @RequestBody List<ExchangeRate> rates) throws InterruptedException {
+        int accepted;
+        try {
+            accepted = rateIngestionService.submitAll(rates);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();  // Nothing was queued
+        }
+        HttpStatus status = accepted == rates.size()
+                ? HttpStatus.ACCEPTED
+                : HttpStatus.SERVICE_UNAVAILABLE;  // Queue stayed full, caller should back off and resend the rest
+        return ResponseEntity.status(status)
+                .body(Map.of("accepted", accepted, "rejected", rates.size() - accepted));
+    }
+
+    @GetMapping("/{currencyPair}/candles")
+    public ResponseEntity<List<RateCandle>> getCandles(
+            @PathVariable String currencyPair,
+            @RequestParam(defaultValue = "1m") String interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(rateHistoryService.getCandles(
+                    currencyPair.toUpperCase(), CandleInterval.fromCode(interval), from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // JSON by default, ColumnarCodec with Accept: application/x-fx-columnar
+    @GetMapping("/{currencyPair}/history")
+    public ResponseEntity<List<ExchangeRate>> getRateHistory(
+            @PathVariable String currencyPair,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(rateHistoryService.getRates(currencyPair.toUpperCase(), from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{currencyPair}/export")
+    public ResponseEntity<StreamingResponseBody> exportRates(
+            @PathVariable String currencyPair,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String pair = currencyPair.toUpperCase();
+        String filename = String.format("%s-%s-%s.%s", pair, from.toLocalDate(), to.toLocalDate(),
+                exportFormat.getFileExtension());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> rateHistoryService.exportRates(pair, from, to, exportFormat, out));
+    }
+
+    @GetMapping("/ingestion-stats")
+    public ResponseEntity<RateIngestionService.Stats> getIngestionStats() {
+        return ResponseEntity.ok(rateIngestionService.getStats());
+    }
+}
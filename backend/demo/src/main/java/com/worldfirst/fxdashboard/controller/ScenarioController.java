@@ -0,0 +1,26 @@
+package com.worldfirst.fxdashboard.controller;
+
+import com.worldfirst.fxdashboard.model.Scenario;
+import com.worldfirst.fxdashboard.model.ScenarioReport;
+import com.worldfirst.fxdashboard.service.ScenarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/fx/scenarios")
+@RequiredArgsConstructor
+public class ScenarioController {
+    private final ScenarioService scenarioService;
+
+    @PostMapping
+    public ResponseEntity<ScenarioReport> runScenarios(@RequestBody List<Scenario> scenarios) {
+        try {
+            return ResponseEntity.ok(scenarioService.runScenarios(scenarios));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
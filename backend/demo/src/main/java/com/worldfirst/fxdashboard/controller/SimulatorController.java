@@ -0,0 +1,56 @@
+package com.worldfirst.fxdashboard.controller;
+
+import com.worldfirst.fxdashboard.model.SimulatorSettings;
+import com.worldfirst.fxdashboard.model.SimulatorStatus;
+import com.worldfirst.fxdashboard.service.RateSimulator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnProperty(name = "fx.simulator.enabled", havingValue = "true")
+@RequestMapping("/api/v1/fx/simulator")
+@RequiredArgsConstructor
+public class SimulatorController {
+    private final RateSimulator rateSimulator;
+
+    @PostMapping("/generator")
+    public ResponseEntity<SimulatorStatus> startGenerator(@RequestBody(required = false) SimulatorSettings settings) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(rateSimulator.startGenerator(settings != null ? settings : new SimulatorSettings()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(rateSimulator.getStatus());
+        }
+    }
+
+    // Files are resolved inside fx.simulator.replay-dir, e.g. ones saved from /rates/{pair}/export
+    @PostMapping("/replay")
+    public ResponseEntity<SimulatorStatus> startReplay(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "1") double speed,
+            @RequestParam(defaultValue = "true") boolean rebaseTimestamps) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(rateSimulator.startReplay(file, speed, rebaseTimestamps));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(rateSimulator.getStatus());
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<SimulatorStatus> stop() {
+        return ResponseEntity.ok(rateSimulator.stop());
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<SimulatorStatus> getStatus() {
+        return ResponseEntity.ok(rateSimulator.getStatus());
+    }
+}
@@ -0,0 +1,12 @@
+package com.worldfirst.fxdashboard.event;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import lombok.Value;
+
+/**
+ * Published when a currency position has been saved.
+ */
+@Value
+public class PositionUpdatedEvent {
+    CurrencyPosition position;
+}
@@ -0,0 +1,14 @@
+package com.worldfirst.fxdashboard.event;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published after one or more rates have been written to exchange_rates.
+ */
+@Value
+public class RateUpdatedEvent {
+    List<ExchangeRate> rates;
+}
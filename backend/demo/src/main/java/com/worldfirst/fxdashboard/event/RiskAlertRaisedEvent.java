@@ -0,0 +1,13 @@
+package com.worldfirst.fxdashboard.event;
+
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import lombok.Value;
+
+/**
+ * Published once per new alert. Refreshes, reopens within cooldown and
+ * escalation-suppressed repeats do not publish, so notifiers see each alert once.
+ */
+@Value
+public class RiskAlertRaisedEvent {
+    RiskAlert alert;
+}
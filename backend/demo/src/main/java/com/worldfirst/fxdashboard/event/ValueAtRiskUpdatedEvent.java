@@ -0,0 +1,14 @@
+package com.worldfirst.fxdashboard.event;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published when Value-at-Risk is recomputed, naming the currencies whose
+ * VaR-based risk level changed.
+ */
+@Value
+public class ValueAtRiskUpdatedEvent {
+    Set<String> changedCurrencies;
+}
@@ -0,0 +1,184 @@
+package com.worldfirst.fxdashboard.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters for the hot paths. Recording is a few uncontended adds, so it
+ * is cheap enough to leave on in production. Timer names are prefixed by layer
+ * ("db.", "service.", "http.") and the prefix picks the slow-operation threshold:
+ * anything slower is logged and kept in a short ring for the metrics endpoint.
+ */
+@Slf4j
+@Component
+public class MetricsRegistry {
+    // Latency histogram bucket upper bounds in milliseconds; the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+    private static final int SLOW_LOG_CAPACITY = 100;
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Deque<SlowOperation> slowOperations = new ArrayDeque<>();
+    private final long slowQueryNanos;
+    private final long slowServiceNanos;
+    private final long slowRequestNanos;
+
+    public MetricsRegistry(
+            @Value("${fx.metrics.slow-query-threshold:PT0.1S}") Duration slowQueryThreshold,
+            @Value("${fx.metrics.slow-service-threshold:PT0.25S}") Duration slowServiceThreshold,
+            @Value("${fx.metrics.slow-request-threshold:PT0.5S}") Duration slowRequestThreshold) {
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+        this.slowServiceNanos = slowServiceThreshold.toNanos();
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+    }
+
+    public <T> T time(String name, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    public void time(String name, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String name, long elapsedNanos) {
+        timers.computeIfAbsent(name, key -> new Timer()).record(elapsedNanos);
+
+        long threshold = thresholdFor(name);
+        if (elapsedNanos > threshold) {
+            double millis = elapsedNanos / 1e6;
+            log.warn("Slow operation {} took {} ms (threshold {} ms)",
+                    name, String.format("%.1f", millis), threshold / 1_000_000);
+            synchronized (slowOperations) {
+                if (slowOperations.size() == SLOW_LOG_CAPACITY) {
+                    slowOperations.removeFirst();
+                }
+                slowOperations.addLast(new SlowOperation(name, millis, LocalDateTime.now()));
+            }
+        }
+    }
+
+    public void increment(String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    public Map<String, TimerStats> getTimerStats() {
+        Map<String, TimerStats> stats = new TreeMap<>();
+        timers.forEach((name, timer) -> stats.put(name, timer.stats()));
+        return stats;
+    }
+
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    public List<SlowOperation> getSlowOperations() {
+        synchronized (slowOperations) {
+            return new ArrayList<>(slowOperations);
+        }
+    }
+
+    private long thresholdFor(String name) {
+        if (name.startsWith("db.")) {
+            return slowQueryNanos;
+        }
+        if (name.startsWith("http.")) {
+            return slowRequestNanos;
+        }
+        return slowServiceNanos;
+    }
+
+    private static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            buckets.incrementAndGet(bucketOf(nanos));
+        }
+
+        TimerStats stats() {
+            long n = count.sum();
+            double maxMillis = maxNanos.get() / 1e6;
+            return new TimerStats(
+                    n,
+                    n > 0 ? totalNanos.sum() / (double) n / 1e6 : 0.0,
+                    percentile(n, 0.50, maxMillis),
+                    percentile(n, 0.99, maxMillis),
+                    maxMillis
+            );
+        }
+
+        // Upper bound of the bucket holding the quantile, capped at the observed max
+        private double percentile(long n, double quantile, double maxMillis) {
+            if (n == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis);
+                }
+            }
+            return maxMillis;
+        }
+
+        private static int bucketOf(long nanos) {
+            long millis = nanos / 1_000_000;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                if (millis < BUCKET_BOUNDS_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MILLIS.length;
+        }
+    }
+
+    @lombok.Value
+    public static class TimerStats {
+        long count;
+        double avgMillis;
+        double p50Millis;   // Bucket upper bound, not an exact percentile
+        double p99Millis;
+        double maxMillis;
+    }
+
+    @lombok.Value
+    public static class SlowOperation {
+        String name;
+        double millis;
+        LocalDateTime at;
+    }
+}
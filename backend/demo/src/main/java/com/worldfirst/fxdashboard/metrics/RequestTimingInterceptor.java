@@ -0,0 +1,44 @@
+package com.worldfirst.fxdashboard.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Times every controller endpoint, keyed by method and route template rather than
+ * the raw URI so that path variables do not create a timer per currency.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestTimingInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".start";
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async requests (SSE, streamed exports) pass through again on dispatch; keep the first start
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String name = "http." + request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+        metricsRegistry.record(name, System.nanoTime() - (Long) start);
+        if (ex != null || response.getStatus() >= 500) {
+            metricsRegistry.increment(name + ".errors");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.worldfirst.fxdashboard.model;
+
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A currency position in one account of one client's book, stored in the
+ * hash-partitioned client_positions table.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientPosition {
+    private String clientId;
+    private String accountId;
+    private String currency;
+    private BigDecimal balance;
+    private BigDecimal pendingIncome;
+    private BigDecimal pendingPayments;
+    private RiskLevel riskLevel;
+    private BigDecimal currentRate;
+    private LocalDateTime rateTimestamp;
+    private LocalDateTime lastUpdated;
+    private Long version;
+
+    public boolean isComplete() {
+        return currency != null && balance != null && pendingIncome != null && pendingPayments != null;
+    }
+
+    // Shape the shared risk rules and exposure arithmetic work on
+    public CurrencyPosition toCurrencyPosition() {
+        CurrencyPosition position = new CurrencyPosition();
+        position.setCurrency(currency);
+        position.setBalance(balance);
+        position.setPendingIncome(pendingIncome);
+        position.setPendingPayments(pendingPayments);
+        position.setRiskLevel(riskLevel);
+        position.setCurrentRate(currentRate);
+        position.setRateTimestamp(rateTimestamp);
+        position.setLastUpdated(lastUpdated);
+        return position;
+    }
+}
@@ -0,0 +1,19 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A rate derived by chaining one or more quoted pairs. The timestamp is that of
+ * the oldest leg, since the result is only as fresh as its stalest input.
+ */
+@Value
+public class CrossRate {
+    String currencyPair;
+    BigDecimal rate;
+    LocalDateTime timestamp;
+    List<String> legs;
+}
@@ -0,0 +1,34 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes pushed to dashboard subscribers. Positions and rates are keyed by
+ * currency and currency pair; alerts, when present, are the full current set.
+ */
+@Value
+public class DashboardDelta {
+    Map<String, CurrencyPosition> positions;
+    Map<String, ExchangeRate> rates;
+    List<RiskAlert> alerts;
+    LocalDateTime lastUpdated;
+
+    // Combines an unsent delta with a newer one, newer entries winning
+    public DashboardDelta mergeWith(DashboardDelta newer) {
+        Map<String, CurrencyPosition> mergedPositions = new HashMap<>(positions);
+        mergedPositions.putAll(newer.getPositions());
+        Map<String, ExchangeRate> mergedRates = new HashMap<>(rates);
+        mergedRates.putAll(newer.getRates());
+        return new DashboardDelta(
+                mergedPositions,
+                mergedRates,
+                newer.getAlerts() != null ? newer.getAlerts() : alerts,
+                newer.getLastUpdated()
+        );
+    }
+}
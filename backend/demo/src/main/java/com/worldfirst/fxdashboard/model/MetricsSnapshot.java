@@ -0,0 +1,25 @@
+package com.worldfirst.fxdashboard.model;
+
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import com.worldfirst.fxdashboard.service.RateIngestionService;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the service knows about its own performance, in one response.
+ */
+@Value
+public class MetricsSnapshot {
+    Map<String, MetricsRegistry.TimerStats> timers;
+    Map<String, Long> counters;
+    Map<String, Double> rateAgeSeconds;    // Per pair, from the latest cached tick
+    List<String> stalePairs;
+    RateCache.Stats rateCache;
+    RateIngestionService.Stats ingestion;
+    List<MetricsRegistry.SlowOperation> slowOperations;
+    LocalDateTime capturedAt;
+}
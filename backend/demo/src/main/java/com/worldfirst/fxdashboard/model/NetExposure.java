@@ -0,0 +1,41 @@
+package com.worldfirst.fxdashboard.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Net exposure (balance + pending income - pending payments) of a position as a
+ * scaled long with four implied decimals, matching the DECIMAL(19,4) columns of
+ * currency_positions. 1234.5 is held as 12_345_000.
+ *
+ * Only reading each amount's unscaled value allocates; the sum and every threshold
+ * comparison on the result are plain long arithmetic.
+ */
+public final class NetExposure {
+    public static final int SCALE = 4;
+
+    private static final long SCALE_FACTOR = 10_000L;
+
+    private NetExposure() {
+    }
+
+    /**
+     * Throws ArithmeticException if any amount has more than four decimals or the
+     * result does not fit in a long; callers fall back to BigDecimal in that case.
+     */
+    public static long scaledNet(CurrencyPosition position) {
+        return Math.subtractExact(
+                Math.addExact(toScaled(position.getBalance()), toScaled(position.getPendingIncome())),
+                toScaled(position.getPendingPayments()));
+    }
+
+    public static long toScaled(BigDecimal amount) {
+        if (amount.scale() == 0) {
+            return Math.multiplyExact(amount.longValueExact(), SCALE_FACTOR);
+        }
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long scaledAmount) {
+        return BigDecimal.valueOf(scaledAmount, SCALE);
+    }
+}
@@ -0,0 +1,28 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Value-at-Risk of the whole book in reporting currency, with the standalone
+ * figures for each currency it was built from.
+ */
+@Value
+public class PortfolioRisk {
+    String reportingCurrency;
+    double confidenceZScore;
+    double horizonDays;
+    double valueAtRisk;
+    Map<String, CurrencyRisk> currencies;
+    LocalDateTime computedAt;
+    long computeMicros;
+
+    @Value
+    public static class CurrencyRisk {
+        double exposure;           // Net position valued in reporting currency
+        double annualVolatility;
+        double valueAtRisk;        // Standalone, ignoring diversification
+    }
+}
@@ -0,0 +1,25 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionUpdateRequest {
+    private String currency;
+    private BigDecimal balance;
+    private BigDecimal pendingIncome;
+    private BigDecimal pendingPayments;
+    private Long expectedVersion;  // Version the caller read; the update only applies if it still matches
+
+    public boolean isComplete() {
+        return currency != null && balance != null && pendingIncome != null
+                && pendingPayments != null && expectedVersion != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.worldfirst.fxdashboard.model;
+
+import com.worldfirst.fxdashboard.model.enums.PositionUpdateStatus;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.Value;
+
+@Value
+public class PositionUpdateResult {
+    String currency;
+    PositionUpdateStatus status;
+    Long version;         // New version when updated, current version on conflict
+    RiskLevel riskLevel;  // Only set when updated
+}
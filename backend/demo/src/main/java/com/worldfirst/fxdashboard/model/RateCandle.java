@@ -0,0 +1,25 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateCandle {
+    private String currencyPair;
+    private String interval;
+    private LocalDateTime bucketStart;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal averageRate;  // Tick-weighted, exchange_rates carries no traded volume
+    private long tickCount;
+}
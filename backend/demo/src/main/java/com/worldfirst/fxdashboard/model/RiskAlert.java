@@ -9,11 +9,13 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class RiskAlert {
     private Long id;
+    private String clientId;  // Null for the house book
+    private String accountId;
     private AlertLevel level;
     private String message;
     private String recommendation;
@@ -0,0 +1,19 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Scenario {
+    private String name;
+    private Map<String, Double> rateShocks;      // Currency -> relative move against reporting currency, -0.05 = 5% drop
+    private Map<String, BigDecimal> cashFlows;   // Currency -> amount received (positive) or paid (negative)
+}
@@ -0,0 +1,16 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Value
+public class ScenarioReport {
+    String reportingCurrency;
+    BigDecimal baseValue;
+    List<ScenarioResult> scenarios;
+    String worstScenario;
+    BigDecimal worstProfitAndLoss;
+    long computeMillis;
+}
@@ -0,0 +1,18 @@
+package com.worldfirst.fxdashboard.model;
+
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class ScenarioResult {
+    String name;
+    BigDecimal totalValue;
+    BigDecimal profitAndLoss;                  // Against the unshocked book
+    Map<RiskLevel, Long> positionsByRiskLevel;
+    List<String> highRiskCurrencies;
+    List<RiskAlert> alerts;
+}
@@ -0,0 +1,25 @@
+package com.worldfirst.fxdashboard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Parameters for the random-walk tick generator. Anything left null falls back
+ * to the fx.simulator.* defaults.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulatorSettings {
+    private List<String> pairs;        // Explicit pairs; otherwise synthetic USD pairs
+    private Integer pairCount;
+    private Double ticksPerSecond;     // Across all pairs
+    private Double annualVolatility;   // e.g. 0.10 for 10%
+    private Double spreadBps;          // Full bid/ask spread around the mid
+    private Long durationSeconds;      // Null runs until stopped
+}
@@ -0,0 +1,16 @@
+package com.worldfirst.fxdashboard.model;
+
+import com.worldfirst.fxdashboard.model.enums.SimulatorMode;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class SimulatorStatus {
+    SimulatorMode mode;
+    String source;          // Pair count or replay file name
+    LocalDateTime startedAt;
+    long ticksSubmitted;
+    long ticksDropped;      // Rejected by ingestion backpressure
+    double ticksPerSecond;  // Achieved since start
+}
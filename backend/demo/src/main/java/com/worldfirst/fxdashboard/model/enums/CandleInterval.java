@@ -0,0 +1,41 @@
+package com.worldfirst.fxdashboard.model.enums;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+@Getter
+public enum CandleInterval {
+    ONE_SECOND("1s", ChronoUnit.SECONDS, "second"),
+    ONE_MINUTE("1m", ChronoUnit.MINUTES, "minute"),
+    ONE_HOUR("1h", ChronoUnit.HOURS, "hour"),
+    ONE_DAY("1d", ChronoUnit.DAYS, "day");
+
+    private final String code;
+    private final ChronoUnit unit;
+    private final String postgresField;  // date_trunc field name
+
+    CandleInterval(String code, ChronoUnit unit, String postgresField) {
+        this.code = code;
+        this.unit = unit;
+        this.postgresField = postgresField;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).dividedBy(unit.getDuration()) + 1;
+    }
+
+    public static CandleInterval fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(interval -> interval.code.equalsIgnoreCase(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported interval: " + code));
+    }
+}
@@ -0,0 +1,17 @@
+package com.worldfirst.fxdashboard.model.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum PositionUpdateStatus {
+    UPDATED("Position updated"),
+    VERSION_CONFLICT("Position was changed by another writer since the expected version"),
+    NOT_FOUND("No position exists for this currency"),
+    INVALID("Update request is incomplete");
+
+    private final String description;
+
+    PositionUpdateStatus(String description) {
+        this.description = description;
+    }
+}
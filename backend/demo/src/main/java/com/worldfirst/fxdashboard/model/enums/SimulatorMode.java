@@ -0,0 +1,16 @@
+package com.worldfirst.fxdashboard.model.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum SimulatorMode {
+    IDLE("No simulation running"),
+    GENERATING("Generating random-walk ticks"),
+    REPLAYING("Replaying a recorded tick file");
+
+    private final String description;
+
+    SimulatorMode(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,150 @@
+package com.worldfirst.fxdashboard.repository;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batched, version-checked writes to currency_positions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PositionBatchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<CurrencyPosition> positionMapper = (rs, rowNum) -> {
+        CurrencyPosition position = new CurrencyPosition();
+        position.setId(rs.getLong("id"));
+        position.setCurrency(rs.getString("currency"));
+        position.setBalance(rs.getBigDecimal("balance"));
+        position.setPendingIncome(rs.getBigDecimal("pending_income"));
+        position.setPendingPayments(rs.getBigDecimal("pending_payments"));
+        position.setRiskLevel(RiskLevel.valueOf(rs.getString("risk_level")));
+        position.setCurrentRate(rs.getBigDecimal("current_rate"));
+        Timestamp rateTimestamp = rs.getTimestamp("rate_timestamp");
+        position.setRateTimestamp(rateTimestamp == null ? null : rateTimestamp.toLocalDateTime());
+        position.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+        return position;
+    };
+
+    // RETURNING reports exactly which inputs landed, which batch update counts may not
+    private static final String UPDATE_IF_VERSION_MATCHES = """
+            UPDATE currency_positions p
+            SET balance = u.balance, pending_income = u.pending_income, pending_payments = u.pending_payments,
+                risk_level = u.risk_level, last_updated = u.last_updated, version = p.version + 1
+            FROM unnest(?::varchar[], ?::bigint[], ?::numeric[], ?::numeric[], ?::numeric[],
+                        ?::varchar[], ?::timestamp[])
+                WITH ORDINALITY AS u(currency, expected_version, balance, pending_income, pending_payments,
+                                     risk_level, last_updated, input_index)
+            WHERE p.currency = u.currency AND p.version = u.expected_version
+            RETURNING u.input_index, p.*
+            """;
+
+    private static final String SELECT_BY_CURRENCIES = """
+            SELECT * FROM currency_positions
+            WHERE currency = ANY(?)
+            """;
+
+    private static final String SELECT_VERSIONS = """
+            SELECT currency, version FROM currency_positions
+            WHERE currency = ANY(?)
+            """;
+
+    /**
+     * Applies each update only if the row is still at the expected version, in one
+     * statement. Returns, per input position, the row as stored after the update, or
+     * null where the row was missing or at another version. When a currency appears
+     * more than once, at most one of its updates lands.
+     */
+    public CurrencyPosition[] updateIfVersionMatches(List<CurrencyPosition> positions, long[] expectedVersions) {
+        int n = positions.size();
+        String[] currencies = new String[n];
+        Long[] versions = new Long[n];
+        BigDecimal[] balances = new BigDecimal[n];
+        BigDecimal[] pendingIncomes = new BigDecimal[n];
+        BigDecimal[] pendingPayments = new BigDecimal[n];
+        String[] riskLevels = new String[n];
+        Timestamp[] lastUpdated = new Timestamp[n];
+        for (int i = 0; i < n; i++) {
+            CurrencyPosition position = positions.get(i);
+            currencies[i] = position.getCurrency();
+            versions[i] = expectedVersions[i];
+            balances[i] = position.getBalance();
+            pendingIncomes[i] = position.getPendingIncome();
+            pendingPayments[i] = position.getPendingPayments();
+            riskLevels[i] = position.getRiskLevel().name();
+            lastUpdated[i] = Timestamp.valueOf(position.getLastUpdated());
+        }
+
+        CurrencyPosition[] updated = new CurrencyPosition[n];
+        jdbcTemplate.query(
+                UPDATE_IF_VERSION_MATCHES,
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(1, connection.createArrayOf("varchar", currencies));
+                    ps.setArray(2, connection.createArrayOf("bigint", versions));
+                    ps.setArray(3, connection.createArrayOf("numeric", balances));
+                    ps.setArray(4, connection.createArrayOf("numeric", pendingIncomes));
+                    ps.setArray(5, connection.createArrayOf("numeric", pendingPayments));
+                    ps.setArray(6, connection.createArrayOf("varchar", riskLevels));
+                    ps.setArray(7, connection.createArrayOf("timestamp", lastUpdated));
+                },
+                (RowCallbackHandler) rs -> updated[(int) rs.getLong("input_index") - 1] =
+                        positionMapper.mapRow(rs, rs.getRow()));
+        return updated;
+    }
+
+    /**
+     * The stored positions for the given currencies in one query; currencies without
+     * a position are absent.
+     */
+    public List<CurrencyPosition> findByCurrencies(Collection<String> currencies) {
+        if (currencies.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                SELECT_BY_CURRENCIES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", currencies.toArray())),
+                positionMapper);
+    }
+
+    public Map<String, Long> findVersions(Collection<String> currencies) {
+        Map<String, Long> versions = new HashMap<>();
+        if (currencies.isEmpty()) {
+            return versions;
+        }
+        jdbcTemplate.query(
+                SELECT_VERSIONS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", currencies.toArray())),
+                rs -> {
+                    versions.put(rs.getString("currency"), rs.getLong("version"));
+                });
+        return versions;
+    }
+
+    public Map<String, Long> findAllVersions() {
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT currency, version FROM currency_positions",
+                rs -> {
+                    versions.put(rs.getString("currency"), rs.getLong("version"));
+                });
+        return versions;
+    }
+
+    // Keeps the version moving for writes that go through the JPA repository
+    public void incrementVersion(String currency) {
+        jdbcTemplate.update("UPDATE currency_positions SET version = version + 1 WHERE currency = ?", currency);
+    }
+}
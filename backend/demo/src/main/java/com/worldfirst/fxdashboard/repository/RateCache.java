@@ -0,0 +1,155 @@
+package com.worldfirst.fxdashboard.repository;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Latest-rate table per currency pair, kept in memory so dashboard reads do not
+ * go to Postgres. Populated by RateRepository on every write and warmed from
+ * exchange_rates at startup.
+ */
+@Slf4j
+@Component
+public class RateCache {
+    private final ConcurrentHashMap<String, Entry> latestRates = new ConcurrentHashMap<>();
+    private final long maxStalenessMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleReads = new LongAdder();
+
+    public RateCache(@Value("${fx.rate-cache.max-staleness:PT5M}") Duration maxStaleness) {
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    /**
+     * Returns the cached latest rate for the pair. Entries that were not confirmed
+     * against the database within the staleness bound are re-read through the loader,
+     * as are pairs the cache has never seen.
+     */
+    public Optional<ExchangeRate> getLatestRate(String currencyPair,
+                                                Function<String, Optional<ExchangeRate>> loader) {
+        Entry entry = latestRates.get(currencyPair);
+        if (entry == null) {
+            misses.increment();
+            return loader.apply(currencyPair).map(this::put);
+        }
+        if (entry.isStale(System.currentTimeMillis(), maxStalenessMillis)) {
+            staleReads.increment();
+            return loader.apply(currencyPair)
+                    .map(this::put)
+                    .or(() -> Optional.of(entry.getRate()));
+        }
+        hits.increment();
+        return Optional.of(entry.getRate());
+    }
+
+    /**
+     * Bulk form of {@link #getLatestRate}: every pair that is missing or stale is
+     * fetched with a single call to the loader, so the cost is one round trip at most
+     * regardless of how many pairs are requested.
+     */
+    public Map<String, ExchangeRate> getLatestRates(Collection<String> currencyPairs,
+                                                    Function<Collection<String>, Map<String, ExchangeRate>> bulkLoader) {
+        long now = System.currentTimeMillis();
+        Map<String, ExchangeRate> result = new HashMap<>();
+        Set<String> toLoad = new HashSet<>();
+
+        for (String currencyPair : currencyPairs) {
+            Entry entry = latestRates.get(currencyPair);
+            if (entry == null) {
+                misses.increment();
+                toLoad.add(currencyPair);
+            } else if (entry.isStale(now, maxStalenessMillis)) {
+                staleReads.increment();
+                result.put(currencyPair, entry.getRate());
+                toLoad.add(currencyPair);
+            } else {
+                hits.increment();
+                result.put(currencyPair, entry.getRate());
+            }
+        }
+
+        if (!toLoad.isEmpty()) {
+            bulkLoader.apply(toLoad).values()
+                    .forEach(rate -> result.put(rate.getCurrencyPair(), put(rate)));
+        }
+        return result;
+    }
+
+    /**
+     * Records a rate, keeping whichever of the cached and supplied rates is newer.
+     * Returns the rate now held for the pair.
+     */
+    public ExchangeRate put(ExchangeRate rate) {
+        long now = System.currentTimeMillis();
+        Entry candidate = new Entry(rate, now);
+        return latestRates.merge(rate.getCurrencyPair(), candidate, (current, incoming) ->
+                incoming.getRate().getTimestamp().isBefore(current.getRate().getTimestamp())
+                        ? new Entry(current.getRate(), now)
+                        : incoming
+        ).getRate();
+    }
+
+    /**
+     * Cached rate without loading or touching the counters, for internal consumers
+     * such as the cross-rate engine.
+     */
+    public Optional<ExchangeRate> peek(String currencyPair) {
+        Entry entry = latestRates.get(currencyPair);
+        return entry == null ? Optional.empty() : Optional.of(entry.getRate());
+    }
+
+    public Collection<ExchangeRate> snapshot() {
+        return latestRates.values().stream()
+                .map(Entry::getRate)
+                .toList();
+    }
+
+    public void warm(Collection<ExchangeRate> rates) {
+        rates.forEach(this::put);
+        log.info("Rate cache warmed with {} currency pairs", latestRates.size());
+    }
+
+    public Stats getStats() {
+        return new Stats(
+                hits.sum(),
+                misses.sum(),
+                staleReads.sum(),
+                latestRates.size(),
+                maxStalenessMillis
+        );
+    }
+
+    @lombok.Value
+    private static class Entry {
+        ExchangeRate rate;
+        long verifiedAtMillis;  // When this rate was last known to be the latest
+
+        boolean isStale(long nowMillis, long maxStalenessMillis) {
+            return nowMillis - verifiedAtMillis > maxStalenessMillis;
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long staleReads;
+        int cachedPairs;
+        long maxStalenessMillis;
+    }
+}
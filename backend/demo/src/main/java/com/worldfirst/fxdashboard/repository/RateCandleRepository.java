@@ -0,0 +1,191 @@
+package com.worldfirst.fxdashboard.repository;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.RateCandle;
+import com.worldfirst.fxdashboard.model.enums.CandleInterval;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OHLC rollups of exchange_rates, one row per pair, interval and bucket. Rows are
+ * upserted as ticks are written so chart queries never scan raw ticks.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RateCandleRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String UPSERT_CANDLE = """
+            INSERT INTO exchange_rate_candles AS c (
+                currency_pair, interval_code, bucket_start, open, high, low, close,
+                open_time, close_time, rate_sum, tick_count
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (currency_pair, interval_code, bucket_start) DO UPDATE SET
+                open = CASE WHEN EXCLUDED.open_time < c.open_time THEN EXCLUDED.open ELSE c.open END,
+                close = CASE WHEN EXCLUDED.close_time >= c.close_time THEN EXCLUDED.close ELSE c.close END,
+                open_time = LEAST(c.open_time, EXCLUDED.open_time),
+                close_time = GREATEST(c.close_time, EXCLUDED.close_time),
+                high = GREATEST(c.high, EXCLUDED.high),
+                low = LEAST(c.low, EXCLUDED.low),
+                rate_sum = c.rate_sum + EXCLUDED.rate_sum,
+                tick_count = c.tick_count + EXCLUDED.tick_count
+            """;
+
+    private static final String REBUILD_CANDLES = """
+            INSERT INTO exchange_rate_candles (
+                currency_pair, interval_code, bucket_start, open, high, low, close,
+                open_time, close_time, rate_sum, tick_count
+            )
+            SELECT currency_pair, ?, date_trunc(?, timestamp),
+                   (array_agg(rate ORDER BY timestamp))[1],
+                   max(rate), min(rate),
+                   (array_agg(rate ORDER BY timestamp DESC))[1],
+                   min(timestamp), max(timestamp), sum(rate), count(*)
+            FROM exchange_rates
+            GROUP BY currency_pair, date_trunc(?, timestamp)
+            """;
+
+    private static final String SELECT_CANDLES = """
+            SELECT * FROM exchange_rate_candles
+            WHERE currency_pair = ?
+            AND interval_code = ?
+            AND bucket_start BETWEEN ? AND ?
+            ORDER BY bucket_start
+            """;
+
+    private final RowMapper<RateCandle> candleMapper = (rs, rowNum) -> RateCandle.builder()
+            .currencyPair(rs.getString("currency_pair"))
+            .interval(rs.getString("interval_code"))
+            .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+            .open(rs.getBigDecimal("open"))
+            .high(rs.getBigDecimal("high"))
+            .low(rs.getBigDecimal("low"))
+            .close(rs.getBigDecimal("close"))
+            .averageRate(rs.getBigDecimal("rate_sum")
+                    .divide(BigDecimal.valueOf(rs.getLong("tick_count")), 6, RoundingMode.HALF_EVEN))
+            .tickCount(rs.getLong("tick_count"))
+            .build();
+
+    private static final String DELETE_CANDLES_BEFORE = """
+            DELETE FROM exchange_rate_candles
+            WHERE interval_code = ?
+            AND bucket_start < ?
+            """;
+
+    // Upserts lock rows in this order, so concurrent batches cannot deadlock on each other
+    private static final Comparator<Bucket> LOCK_ORDER = Comparator
+            .comparing((Bucket bucket) -> bucket.currencyPair)
+            .thenComparing(bucket -> bucket.intervalCode)
+            .thenComparing(bucket -> bucket.bucketStart);
+
+    /**
+     * Folds a batch of ticks into every interval. Ticks are first combined per bucket
+     * in memory, so a batch costs one upsert per touched bucket rather than per tick.
+     */
+    public void applyTicks(List<ExchangeRate> rates) {
+        Map<String, Bucket> buckets = new HashMap<>();
+        for (ExchangeRate rate : rates) {
+            for (CandleInterval interval : CandleInterval.values()) {
+                LocalDateTime bucketStart = interval.bucketStart(rate.getTimestamp());
+                buckets.computeIfAbsent(
+                        rate.getCurrencyPair() + '|' + interval.getCode() + '|' + bucketStart,
+                        key -> new Bucket(rate.getCurrencyPair(), interval.getCode(), bucketStart)
+                ).add(rate);
+            }
+        }
+
+        List<Bucket> rows = new ArrayList<>(buckets.values());
+        rows.sort(LOCK_ORDER);
+        jdbcTemplate.batchUpdate(UPSERT_CANDLE, rows, rows.size(), (ps, bucket) -> {
+            ps.setString(1, bucket.currencyPair);
+            ps.setString(2, bucket.intervalCode);
+            ps.setTimestamp(3, Timestamp.valueOf(bucket.bucketStart));
+            ps.setBigDecimal(4, bucket.open);
+            ps.setBigDecimal(5, bucket.high);
+            ps.setBigDecimal(6, bucket.low);
+            ps.setBigDecimal(7, bucket.close);
+            ps.setTimestamp(8, Timestamp.valueOf(bucket.openTime));
+            ps.setTimestamp(9, Timestamp.valueOf(bucket.closeTime));
+            ps.setBigDecimal(10, bucket.rateSum);
+            ps.setLong(11, bucket.tickCount);
+        });
+    }
+
+    /**
+     * Recomputes all rollups from the raw ticks, for data loaded outside the normal write path.
+     */
+    public void rebuildAll() {
+        jdbcTemplate.update("DELETE FROM exchange_rate_candles");
+        for (CandleInterval interval : CandleInterval.values()) {
+            jdbcTemplate.update(REBUILD_CANDLES,
+                    interval.getCode(), interval.getPostgresField(), interval.getPostgresField());
+        }
+    }
+
+    public int deleteCandlesBefore(CandleInterval interval, LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_CANDLES_BEFORE, interval.getCode(), Timestamp.valueOf(cutoff));
+    }
+
+    public List<RateCandle> findCandles(String currencyPair,
+                                        CandleInterval interval,
+                                        LocalDateTime start,
+                                        LocalDateTime end) {
+        return jdbcTemplate.query(
+                SELECT_CANDLES,
+                candleMapper,
+                currencyPair,
+                interval.getCode(),
+                interval.bucketStart(start),
+                end
+        );
+    }
+
+    private static class Bucket {
+        private final String currencyPair;
+        private final String intervalCode;
+        private final LocalDateTime bucketStart;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private LocalDateTime openTime;
+        private LocalDateTime closeTime;
+        private BigDecimal rateSum = BigDecimal.ZERO;
+        private long tickCount;
+
+        Bucket(String currencyPair, String intervalCode, LocalDateTime bucketStart) {
+            this.currencyPair = currencyPair;
+            this.intervalCode = intervalCode;
+            this.bucketStart = bucketStart;
+        }
+
+        void add(ExchangeRate rate) {
+            BigDecimal value = rate.getRate();
+            LocalDateTime timestamp = rate.getTimestamp();
+            if (openTime == null || timestamp.isBefore(openTime)) {
+                openTime = timestamp;
+                open = value;
+            }
+            if (closeTime == null || !timestamp.isBefore(closeTime)) {
+                closeTime = timestamp;
+                close = value;
+            }
+            high = high == null || value.compareTo(high) > 0 ? value : high;
+            low = low == null || value.compareTo(low) < 0 ? value : low;
+            rateSum = rateSum.add(value);
+            tickCount++;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.worldfirst.fxdashboard.repository;
+
+import com.worldfirst.fxdashboard.model.enums.CandleInterval;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the daily range partitions of exchange_rates. Partitions are created
+ * ahead of time so inserts never miss one, and partitions older than the retention
+ * period are either dropped or detached, leaving them as standalone tables that can
+ * be archived. There is no DEFAULT partition, since one would stop Postgres from
+ * scanning the partitions in timestamp order for latest-rate lookups; writers check
+ * {@link #covers} instead. Candles are expired on the same schedule: second candles
+ * after a short window of their own, coarser ones with the raw ticks they summarise.
+ */
+@Slf4j
+@Component
+public class RatePartitionManager {
+    private static final String PARTITION_PREFIX = "exchange_rates_p";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT child.relname FROM pg_inherits
+            JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+            JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+            WHERE parent.relname = 'exchange_rates'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RateCandleRepository rateCandleRepository;
+    private final int retentionDays;
+    private final int premakeDays;
+    private final boolean detachExpired;
+    private final Duration secondCandleRetention;
+
+    public RatePartitionManager(
+            JdbcTemplate jdbcTemplate,
+            RateCandleRepository rateCandleRepository,
+            @Value("${fx.rates.retention-days:90}") int retentionDays,
+            @Value("${fx.rates.partition-premake-days:7}") int premakeDays,
+            @Value("${fx.rates.detach-expired-partitions:false}") boolean detachExpired,
+            @Value("${fx.rates.second-candle-retention:PT24H}") Duration secondCandleRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rateCandleRepository = rateCandleRepository;
+        this.retentionDays = retentionDays;
+        this.premakeDays = premakeDays;
+        this.detachExpired = detachExpired;
+        this.secondCandleRetention = secondCandleRetention;
+    }
+
+    @Scheduled(cron = "${fx.rates.partition-maintenance-cron:0 5 0 * * *}")
+    public void maintainPartitions() {
+        createPartitions();
+        expirePartitions();
+        expireCandles();
+    }
+
+    /**
+     * Ensures a partition exists for every day from the start of the retention window
+     * up to the premake horizon.
+     */
+    public void createPartitions() {
+        Set<String> existing = new HashSet<>(listPartitions());
+        LocalDate today = LocalDate.now();
+        int created = 0;
+
+        for (LocalDate day = today.minusDays(retentionDays); !day.isAfter(today.plusDays(premakeDays)); day = day.plusDays(1)) {
+            String name = partitionName(day);
+            if (existing.contains(name)) {
+                continue;
+            }
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF exchange_rates FOR VALUES FROM ('%s') TO ('%s')",
+                    name, day, day.plusDays(1)));
+            created++;
+        }
+        if (created > 0) {
+            log.info("Created {} exchange_rates partitions", created);
+        }
+    }
+
+    /**
+     * Whether a tick at this time has a partition to go to, now or after the next
+     * maintenance run. Ticks outside this window would fail their insert.
+     */
+    public boolean covers(LocalDateTime timestamp) {
+        LocalDate day = timestamp.toLocalDate();
+        LocalDate today = LocalDate.now();
+        return !day.isBefore(today.minusDays(retentionDays)) && !day.isAfter(today.plusDays(premakeDays));
+    }
+
+    public void expirePartitions() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+
+        for (String name : listPartitions()) {
+            LocalDate day = partitionDay(name);
+            if (day == null || !day.isBefore(cutoff)) {
+                continue;
+            }
+            if (detachExpired) {
+                jdbcTemplate.execute("ALTER TABLE exchange_rates DETACH PARTITION " + name);
+                log.info("Detached expired partition {} for archiving", name);
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped expired partition {}", name);
+            }
+        }
+    }
+
+    public void expireCandles() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime tickCutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+
+        for (CandleInterval interval : CandleInterval.values()) {
+            LocalDateTime cutoff = interval == CandleInterval.ONE_SECOND
+                    ? now.minus(secondCandleRetention)
+                    : tickCutoff;
+            int deleted = rateCandleRepository.deleteCandlesBefore(interval, cutoff);
+            if (deleted > 0) {
+                log.info("Deleted {} {} candles before {}", deleted, interval.getCode(), cutoff);
+            }
+        }
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(SUFFIX_FORMAT);
+    }
+
+    // Null for partitions not created by this class
+    private static LocalDate partitionDay(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package com.worldfirst.fxdashboard.repository;
 
 
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
 import com.worldfirst.fxdashboard.model.ExchangeRate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class RateRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final RateCache rateCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RateCandleRepository rateCandleRepository;
+    private final MetricsRegistry metricsRegistry;
 
     private static final String SELECT_LATEST_RATE = """
             SELECT * FROM exchange_rates 
@@ -21,10 +41,36 @@ public class RateRepository {
             ORDER BY timestamp DESC LIMIT 1
             """;
 
+    private static final String SELECT_ALL_LATEST_RATES = """
+            SELECT DISTINCT ON (currency_pair) * FROM exchange_rates
+            ORDER BY currency_pair, timestamp DESC
+            """;
+
+    // One index probe per pair rather than a DISTINCT ON over every row of those pairs
+    private static final String SELECT_LATEST_RATES_FOR_PAIRS = """
+            SELECT latest.* FROM unnest(?::varchar[]) AS pairs(currency_pair)
+            CROSS JOIN LATERAL (
+                SELECT * FROM exchange_rates
+                WHERE exchange_rates.currency_pair = pairs.currency_pair
+                ORDER BY timestamp DESC LIMIT 1
+            ) latest
+            """;
+
+    // Same probe bounded by the as-of time; partitions after it are pruned at execution
+    private static final String SELECT_RATES_AS_OF_FOR_PAIRS = """
+            SELECT as_of.* FROM unnest(?::varchar[]) AS pairs(currency_pair)
+            CROSS JOIN LATERAL (
+                SELECT * FROM exchange_rates
+                WHERE exchange_rates.currency_pair = pairs.currency_pair
+                AND timestamp <= ?
+                ORDER BY timestamp DESC LIMIT 1
+            ) as_of
+            """;
+
     private static final String INSERT_RATE = """
             INSERT INTO exchange_rates (
-                currency_pair, rate, timestamp, source
-            ) VALUES (?, ?, ?, ?)
+                currency_pair, rate, bid, ask, timestamp, source, volatility_index
+            ) VALUES (?, ?, ?, ?, ?, ?, ?)
             """;
 
     private static final String SELECT_RATES_BY_TIMERANGE = """
@@ -34,55 +80,178 @@ public class RateRepository {
             ORDER BY timestamp DESC
             """;
 
+    private static final String SELECT_RATES_BY_TIMERANGE_ASC = """
+            SELECT * FROM exchange_rates
+            WHERE currency_pair = ?
+            AND timestamp BETWEEN ? AND ?
+            ORDER BY timestamp
+            """;
+
+    @Value("${fx.export.fetch-size:1000}")
+    private int streamFetchSize;
+
     private final RowMapper<ExchangeRate> rateMapper = (rs, rowNum) -> {
         ExchangeRate rate = new ExchangeRate();
         rate.setId(rs.getLong("id"));
         rate.setCurrencyPair(rs.getString("currency_pair"));
         rate.setRate(rs.getBigDecimal("rate"));
+        rate.setBid(rs.getBigDecimal("bid"));
+        rate.setAsk(rs.getBigDecimal("ask"));
         rate.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
         rate.setSource(rs.getString("source"));
+        rate.setVolatilityIndex(rs.getBigDecimal("volatility_index"));
         return rate;
     };
 
     public Optional<ExchangeRate> findLatestRate(String currencyPair) {
-        List<ExchangeRate> rates = jdbcTemplate.query(
+        List<ExchangeRate> rates = metricsRegistry.time("db.rates.findLatestRate", () -> jdbcTemplate.query(
                 SELECT_LATEST_RATE,
                 rateMapper,
                 currencyPair
-        );
+        ));
         return rates.isEmpty() ? Optional.empty() : Optional.of(rates.get(0));
     }
 
+    @Transactional
     public ExchangeRate save(ExchangeRate rate) {
-        jdbcTemplate.update(
+        metricsRegistry.time("db.rates.save", () -> jdbcTemplate.update(
                 INSERT_RATE,
                 rate.getCurrencyPair(),
                 rate.getRate(),
+                rate.getBid(),
+                rate.getAsk(),
                 rate.getTimestamp(),
-                rate.getSource()
-        );
+                rate.getSource(),
+                rate.getVolatilityIndex()
+        ));
+        rateCandleRepository.applyTicks(List.of(rate));
+        publishAfterCommit(List.of(rate));
         return rate;
     }
 
+    /**
+     * Writes the rates as one JDBC batch, together with their OHLC rollups, and
+     * updates the cache once the batch has been committed.
+     */
+    @Transactional
+    public void saveAll(List<ExchangeRate> rates) {
+        metricsRegistry.time("db.rates.saveAll", () -> jdbcTemplate.batchUpdate(
+                INSERT_RATE, rates, rates.size(), (ps, rate) -> {
+                    ps.setString(1, rate.getCurrencyPair());
+                    ps.setBigDecimal(2, rate.getRate());
+                    ps.setBigDecimal(3, rate.getBid());
+                    ps.setBigDecimal(4, rate.getAsk());
+                    ps.setTimestamp(5, Timestamp.valueOf(rate.getTimestamp()));
+                    ps.setString(6, rate.getSource());
+                    ps.setBigDecimal(7, rate.getVolatilityIndex());
+                }));
+        rateCandleRepository.applyTicks(rates);
+        publishAfterCommit(List.copyOf(rates));
+    }
+
+    // A rolled-back write must not reach the cache or any rate listener
+    private void publishAfterCommit(List<ExchangeRate> rates) {
+        Runnable publish = () -> {
+            rates.forEach(rateCache::put);
+            eventPublisher.publishEvent(new RateUpdatedEvent(rates));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
+
+    /**
+     * Latest rate for each of the given pairs in a single round trip.
+     * Pairs with no rows are absent from the returned map.
+     */
+    public Map<String, ExchangeRate> findLatestRates(Collection<String> currencyPairs) {
+        if (currencyPairs.isEmpty()) {
+            return Map.of();
+        }
+        List<ExchangeRate> rates = metricsRegistry.time("db.rates.findLatestRates", () -> jdbcTemplate.query(
+                SELECT_LATEST_RATES_FOR_PAIRS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", currencyPairs.toArray())),
+                rateMapper
+        ));
+        return rates.stream()
+                .collect(Collectors.toMap(ExchangeRate::getCurrencyPair, Function.identity()));
+    }
+
+    /**
+     * Rate in effect at the given time for each of the given pairs, i.e. its last
+     * tick at or before it, in a single round trip. Pairs with no tick by then are
+     * absent from the returned map.
+     */
+    public Map<String, ExchangeRate> findRatesAsOf(Collection<String> currencyPairs, LocalDateTime asOf) {
+        if (currencyPairs.isEmpty()) {
+            return Map.of();
+        }
+        List<ExchangeRate> rates = metricsRegistry.time("db.rates.findRatesAsOf", () -> jdbcTemplate.query(
+                SELECT_RATES_AS_OF_FOR_PAIRS,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", currencyPairs.toArray()));
+                    ps.setTimestamp(2, Timestamp.valueOf(asOf));
+                },
+                rateMapper
+        ));
+        return rates.stream()
+                .collect(Collectors.toMap(ExchangeRate::getCurrencyPair, Function.identity()));
+    }
+
+    public List<ExchangeRate> findAllLatestRates() {
+        return metricsRegistry.time("db.rates.findAllLatestRates",
+                () -> jdbcTemplate.query(SELECT_ALL_LATEST_RATES, rateMapper));
+    }
+
     public List<ExchangeRate> findRatesByTimeRange(
             String currencyPair,
             LocalDateTime start,
             LocalDateTime end) {
-        return jdbcTemplate.query(
+        return metricsRegistry.time("db.rates.findRatesByTimeRange", () -> jdbcTemplate.query(
                 SELECT_RATES_BY_TIMERANGE,
                 rateMapper,
                 currencyPair,
                 start,
                 end
-        );
+        ));
+    }
+
+    /**
+     * Hands each rate in the range to the consumer, oldest first, as it is read.
+     * Postgres only streams with a cursor inside a transaction, hence the read-only
+     * transaction; rows are fetched in chunks of fx.export.fetch-size so memory use
+     * does not grow with the size of the range.
+     */
+    @Transactional(readOnly = true)
+    public void streamRatesByTimeRange(
+            String currencyPair,
+            LocalDateTime start,
+            LocalDateTime end,
+            Consumer<ExchangeRate> consumer) {
+        metricsRegistry.time("db.rates.streamRatesByTimeRange", () -> jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            SELECT_RATES_BY_TIMERANGE_ASC,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(streamFetchSize);
+                    ps.setString(1, currencyPair);
+                    ps.setTimestamp(2, Timestamp.valueOf(start));
+                    ps.setTimestamp(3, Timestamp.valueOf(end));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(rateMapper.mapRow(rs, rs.getRow()))
+        ));
     }
 
     public Optional<ExchangeRate> findTopByCurrencyPairOrderByTimestampDesc(String currencyPair) {
-        List<ExchangeRate> rates = jdbcTemplate.query(
-                SELECT_LATEST_RATE,
-                rateMapper,
-                currencyPair
-        );
-        return rates.isEmpty() ? Optional.empty() : Optional.of(rates.get(0));
+        return findLatestRate(currencyPair);
     }
 }
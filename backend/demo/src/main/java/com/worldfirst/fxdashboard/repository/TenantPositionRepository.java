@@ -0,0 +1,106 @@
+package com.worldfirst.fxdashboard.repository;
+
+import com.worldfirst.fxdashboard.model.ClientPosition;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-client position books in client_positions. Every statement is keyed by
+ * client_id, so Postgres prunes to the client's hash partition and serves it from
+ * the primary key; no query here touches another tenant's rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TenantPositionRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String SELECT_BY_CLIENT = """
+            SELECT * FROM client_positions
+            WHERE client_id = ?
+            ORDER BY account_id, currency
+            """;
+
+    private static final String SELECT_BY_ACCOUNT = """
+            SELECT * FROM client_positions
+            WHERE client_id = ? AND account_id = ?
+            ORDER BY currency
+            """;
+
+    private static final String SELECT_ONE = """
+            SELECT * FROM client_positions
+            WHERE client_id = ? AND account_id = ? AND currency = ?
+            """;
+
+    // Inserts a new position or applies the change only if the stored row is still at the expected version
+    private static final String UPSERT_IF_VERSION_MATCHES = """
+            INSERT INTO client_positions (
+                client_id, account_id, currency, balance, pending_income, pending_payments,
+                risk_level, last_updated, version
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)
+            ON CONFLICT (client_id, account_id, currency) DO UPDATE
+            SET balance = EXCLUDED.balance,
+                pending_income = EXCLUDED.pending_income,
+                pending_payments = EXCLUDED.pending_payments,
+                risk_level = EXCLUDED.risk_level,
+                last_updated = EXCLUDED.last_updated,
+                version = client_positions.version + 1
+            WHERE ?::bigint IS NULL OR client_positions.version = ?
+            RETURNING version
+            """;
+
+    private final RowMapper<ClientPosition> positionMapper = (rs, rowNum) -> ClientPosition.builder()
+            .clientId(rs.getString("client_id"))
+            .accountId(rs.getString("account_id"))
+            .currency(rs.getString("currency"))
+            .balance(rs.getBigDecimal("balance"))
+            .pendingIncome(rs.getBigDecimal("pending_income"))
+            .pendingPayments(rs.getBigDecimal("pending_payments"))
+            .riskLevel(RiskLevel.valueOf(rs.getString("risk_level")))
+            .lastUpdated(rs.getTimestamp("last_updated").toLocalDateTime())
+            .version(rs.getLong("version"))
+            .build();
+
+    public List<ClientPosition> findByClient(String clientId) {
+        return jdbcTemplate.query(SELECT_BY_CLIENT, positionMapper, clientId);
+    }
+
+    public List<ClientPosition> findByAccount(String clientId, String accountId) {
+        return jdbcTemplate.query(SELECT_BY_ACCOUNT, positionMapper, clientId, accountId);
+    }
+
+    public Optional<ClientPosition> find(String clientId, String accountId, String currency) {
+        return jdbcTemplate.query(SELECT_ONE, positionMapper, clientId, accountId, currency)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Writes the position and returns its new version. A null version on the input
+     * overwrites unconditionally; otherwise an existing row only changes if it is
+     * still at that version, and an empty result means it was not.
+     */
+    public Optional<Long> save(ClientPosition position) {
+        List<Long> versions = jdbcTemplate.query(
+                UPSERT_IF_VERSION_MATCHES,
+                (rs, rowNum) -> rs.getLong("version"),
+                position.getClientId(),
+                position.getAccountId(),
+                position.getCurrency(),
+                position.getBalance(),
+                position.getPendingIncome(),
+                position.getPendingPayments(),
+                position.getRiskLevel().name(),
+                Timestamp.valueOf(position.getLastUpdated()),
+                position.getVersion(),
+                position.getVersion()
+        );
+        return versions.stream().findFirst();
+    }
+}
@@ -0,0 +1,253 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.model.enums.AlertLevel;
+import com.worldfirst.fxdashboard.model.enums.AlertStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicated alert state behind {@link RiskAlertEngine}, which serialises all
+ * access to it.
+ *
+ * There is at most one alert per (currency, trigger, level). While its condition
+ * keeps holding the alert is refreshed in place. When the condition clears, an alert
+ * with a numeric threshold stays open until the value has moved back past the
+ * threshold by the hysteresis fraction, so a value hovering at the line does not
+ * flap. After an alert resolves, the key is in cooldown: a re-trigger reopens the
+ * same alert instead of raising a new one, and a manually resolved alert stays
+ * resolved.
+ *
+ * Expiries and cooldowns are deadlines in a priority queue holding one entry per
+ * alert or cooldown. A sweep pops only the deadlines that are due, so its cost
+ * depends on how many alerts expire, not on how many exist.
+ */
+class AlertStore {
+    private final Duration ttl;
+    private final long cooldownMillis;
+    private final double hysteresis;
+
+    private final Map<Key, Entry> active = new HashMap<>();
+    private final Map<Long, Entry> activeById = new HashMap<>();
+    private final Map<Key, Entry> coolingDown = new HashMap<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+    private final AtomicLong alertIds = new AtomicLong();
+
+    AlertStore(Duration ttl, Duration cooldown, double hysteresis) {
+        this.ttl = ttl;
+        this.cooldownMillis = cooldown.toMillis();
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * Records that the candidate's condition holds. Returns the alert only when it is
+     * genuinely new, i.e. worth notifying about; refreshes, reopens within cooldown
+     * and candidates suppressed by a held higher-level alert return empty.
+     */
+    Optional<RiskAlert> raise(RiskAlert candidate, LocalDateTime now) {
+        for (AlertLevel level : AlertLevel.values()) {
+            Entry other = active.get(new Key(candidate.getCurrency(), candidate.getTriggeredBy(), level));
+            if (other == null || level == candidate.getLevel()) {
+                continue;
+            }
+            if (severity(level) > severity(candidate.getLevel()) && isHeld(other, candidate.getActualValue())) {
+                return Optional.empty();
+            }
+            // Escalated, or a higher alert that has cleared: the candidate replaces it
+            close(other, now, false);
+        }
+
+        Key key = new Key(candidate.getCurrency(), candidate.getTriggeredBy(), candidate.getLevel());
+        Entry existing = active.get(key);
+        if (existing != null) {
+            copyDetails(candidate, existing.alert);
+            existing.alert.setExpiresAt(now.plus(ttl));
+            return Optional.empty();
+        }
+
+        Entry cooling = coolingDown.remove(key);
+        if (cooling != null && cooling.manuallyResolved) {
+            coolingDown.put(key, cooling);
+            return Optional.empty();
+        }
+        if (cooling != null) {
+            RiskAlert reopened = cooling.alert;
+            reopened.setResolvedAt(null);
+            reopened.setStatus(cooling.statusBeforeResolve);
+            open(key, reopened, candidate, now);
+            return Optional.empty();
+        }
+
+        RiskAlert alert = RiskAlert.createNew();
+        alert.setId(alertIds.incrementAndGet());
+        open(key, alert, candidate, now);
+        return Optional.of(alert);
+    }
+
+    /**
+     * Records that a rule's condition no longer holds for the currency. Alerts still
+     * inside their hysteresis band stay open.
+     */
+    void clear(String currency, String trigger, Double actualValue, LocalDateTime now) {
+        for (AlertLevel level : AlertLevel.values()) {
+            Entry entry = active.get(new Key(currency, trigger, level));
+            if (entry != null && !isHeld(entry, actualValue)) {
+                close(entry, now, false);
+            }
+        }
+    }
+
+    Optional<RiskAlert> findById(Long alertId) {
+        return Optional.ofNullable(activeById.get(alertId)).map(entry -> entry.alert);
+    }
+
+    Optional<RiskAlert> resolve(Long alertId, LocalDateTime now) {
+        Entry entry = activeById.get(alertId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        close(entry, now, true);
+        return Optional.of(entry.alert);
+    }
+
+    Collection<RiskAlert> getActive() {
+        return active.values().stream().map(entry -> entry.alert).toList();
+    }
+
+    /**
+     * Resolves every alert past its expiry and ends every cooldown that is due.
+     * Returns the number of alerts resolved.
+     */
+    int sweep(LocalDateTime now) {
+        long nowMillis = toMillis(now);
+        int expired = 0;
+        while (!deadlines.isEmpty() && deadlines.peek().atMillis <= nowMillis) {
+            Deadline deadline = deadlines.poll();
+            Entry entry = deadline.entry;
+            if (deadline.cooldown) {
+                coolingDown.remove(entry.key, entry);
+                continue;
+            }
+            if (active.get(entry.key) != entry) {
+                continue;  // Closed since it was scheduled; its cooldown has its own deadline
+            }
+            long expiresAtMillis = toMillis(entry.alert.getExpiresAt());
+            if (expiresAtMillis > nowMillis) {
+                // Refreshed since scheduled: move the one entry instead of queueing one per refresh
+                deadlines.add(new Deadline(expiresAtMillis, entry, false));
+                continue;
+            }
+            close(entry, now, false);
+            expired++;
+        }
+        return expired;
+    }
+
+    private void open(Key key, RiskAlert alert, RiskAlert candidate, LocalDateTime now) {
+        copyDetails(candidate, alert);
+        alert.setExpiresAt(now.plus(ttl));
+        Entry entry = new Entry(key, alert);
+        entry.direction = direction(candidate);
+        active.put(key, entry);
+        activeById.put(alert.getId(), entry);
+        deadlines.add(new Deadline(toMillis(alert.getExpiresAt()), entry, false));
+    }
+
+    private void close(Entry entry, LocalDateTime now, boolean manual) {
+        active.remove(entry.key);
+        activeById.remove(entry.alert.getId());
+        entry.statusBeforeResolve = entry.alert.getStatus() == AlertStatus.ACKNOWLEDGED
+                ? AlertStatus.ACKNOWLEDGED
+                : AlertStatus.ACTIVE;
+        entry.alert.resolve();
+        entry.manuallyResolved = manual;
+        if (cooldownMillis > 0) {
+            coolingDown.put(entry.key, entry);
+            deadlines.add(new Deadline(toMillis(now) + cooldownMillis, entry, true));
+        }
+    }
+
+    // Still on the triggering side of the threshold, or not yet clear of it by the hysteresis margin
+    private boolean isHeld(Entry entry, Double actualValue) {
+        Double threshold = entry.alert.getThresholdValue();
+        if (threshold == null || actualValue == null || entry.direction == 0) {
+            return false;
+        }
+        return (actualValue - threshold) * entry.direction > -hysteresis * Math.abs(threshold);
+    }
+
+    // Which side of the threshold triggers: +1 above, -1 below, 0 when there is no numeric threshold
+    private static int direction(RiskAlert alert) {
+        if (alert.getThresholdValue() == null || alert.getActualValue() == null) {
+            return 0;
+        }
+        return (int) Math.signum(alert.getActualValue() - alert.getThresholdValue());
+    }
+
+    private static int severity(AlertLevel level) {
+        return switch (level) {
+            case HIGH -> 2;
+            case MEDIUM -> 1;
+            default -> 0;
+        };
+    }
+
+    private static void copyDetails(RiskAlert from, RiskAlert to) {
+        to.setLevel(from.getLevel());
+        to.setMessage(from.getMessage());
+        to.setRecommendation(from.getRecommendation());
+        to.setCurrency(from.getCurrency());
+        to.setTriggeredBy(from.getTriggeredBy());
+        to.setThresholdValue(from.getThresholdValue());
+        to.setActualValue(from.getActualValue());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @lombok.Value
+    private static class Key {
+        String currency;
+        String triggeredBy;
+        AlertLevel level;
+    }
+
+    private static class Entry {
+        private final Key key;
+        private final RiskAlert alert;
+        private int direction;
+        private boolean manuallyResolved;
+        private AlertStatus statusBeforeResolve = AlertStatus.ACTIVE;
+
+        Entry(Key key, RiskAlert alert) {
+            this.key = key;
+            this.alert = alert;
+        }
+    }
+
+    private static class Deadline implements Comparable<Deadline> {
+        private final long atMillis;
+        private final Entry entry;
+        private final boolean cooldown;
+
+        Deadline(long atMillis, Entry entry, boolean cooldown) {
+            this.atMillis = atMillis;
+            this.entry = entry;
+            this.cooldown = cooldown;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(atMillis, other.atMillis);
+        }
+    }
+}
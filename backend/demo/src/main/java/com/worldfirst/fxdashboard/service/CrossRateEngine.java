@@ -0,0 +1,276 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.model.CrossRate;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Resolves any currency pair from the quoted pairs held in RateCache. Currencies
+ * are nodes and every quoted pair is an edge usable in both directions; a cross is
+ * priced along the path with the fewest legs. Derived rates are cached and only the
+ * crosses that depend on a pair are dropped when that pair ticks. A pair that has
+ * never been seen before changes the graph and clears the whole cache.
+ *
+ * The route each currency is valued on against the reporting currency is also
+ * kept, indexed by leg, so listeners can ask which currencies a tick moves. Routes
+ * depend only on the graph, so they outlive ticks and are re-routed after it changes.
+ */
+@Slf4j
+@Service
+public class CrossRateEngine {
+    private static final int RATE_SCALE = 6;  // Matches exchange_rates.rate DECIMAL(10,6)
+
+    private final RateCache rateCache;
+    @Getter
+    private final String reportingCurrency;
+
+    private final Map<String, Map<String, String>> edges = new HashMap<>();
+    private final Map<String, CrossRate> crossRates = new HashMap<>();
+    private final Map<String, Set<String>> dependentCrosses = new HashMap<>();
+    private final Map<String, List<String>> valuationRoutes = new HashMap<>();
+    private final Map<String, Set<String>> valuedThrough = new HashMap<>();
+    private boolean routesStale;
+
+    public CrossRateEngine(RateCache rateCache,
+                           @Value("${fx.reporting-currency:USD}") String reportingCurrency) {
+        this.rateCache = rateCache;
+        this.reportingCurrency = reportingCurrency;
+    }
+
+    /**
+     * Rebuilds the graph from every pair currently in the cache.
+     */
+    public synchronized void rebuild(Collection<ExchangeRate> latestRates) {
+        edges.clear();
+        crossRates.clear();
+        dependentCrosses.clear();
+        routesStale = true;
+        latestRates.forEach(rate -> addEdge(rate.getCurrencyPair()));
+        log.info("Cross-rate graph built with {} currencies", edges.size());
+    }
+
+    @EventListener
+    public synchronized void onRatesUpdated(RateUpdatedEvent event) {
+        for (ExchangeRate rate : event.getRates()) {
+            String pair = rate.getCurrencyPair();
+            if (addEdge(pair)) {
+                crossRates.clear();
+                dependentCrosses.clear();
+                routesStale = true;
+            } else {
+                Set<String> dependents = dependentCrosses.remove(pair);
+                if (dependents != null) {
+                    dependents.forEach(crossRates::remove);
+                }
+            }
+        }
+    }
+
+    public synchronized boolean isQuoted(String currencyPair) {
+        String base = currencyPair.substring(0, 3);
+        String quote = currencyPair.substring(3);
+        return currencyPair.equals(edges.getOrDefault(base, Map.of()).get(quote));
+    }
+
+    /**
+     * The pair a currency should be quoted against the reporting currency with:
+     * whichever direction the market quotes, or CCY/reporting when neither is quoted
+     * and the rate has to be triangulated.
+     */
+    public synchronized String quotePair(String currency) {
+        String pair = edges.getOrDefault(currency, Map.of()).get(reportingCurrency);
+        return pair != null ? pair : currency + reportingCurrency;
+    }
+
+    public Optional<CrossRate> resolve(String currencyPair) {
+        return resolve(currencyPair.substring(0, 3), currencyPair.substring(3));
+    }
+
+    public synchronized Optional<CrossRate> resolve(String base, String quote) {
+        String key = base + quote;
+        if (base.equals(quote)) {
+            return Optional.of(new CrossRate(key, BigDecimal.ONE, LocalDateTime.now(), List.of()));
+        }
+        CrossRate cached = crossRates.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        List<String> path = shortestPath(base, quote, leg -> true);
+        if (path == null) {
+            return Optional.empty();
+        }
+        Optional<CrossRate> priced = price(key, base, path, rateCache::peek);
+        priced.ifPresent(crossRate -> {
+            crossRates.put(key, crossRate);
+            path.forEach(leg -> dependentCrosses.computeIfAbsent(leg, k -> new HashSet<>()).add(key));
+        });
+        if (quote.equals(reportingCurrency)) {
+            recordRoute(base, path);
+        }
+        return priced;
+    }
+
+    /**
+     * Currencies whose value in the reporting currency moves when these pairs tick:
+     * every currency valued on a route through one of them, which is all of those
+     * routed via a reporting-currency leg when that leg ticks. A pair the graph has
+     * not seen yet moves both its currencies. Only currencies valued since startup
+     * are known, which includes every position.
+     */
+    public synchronized Set<String> dependentCurrencies(Collection<String> currencyPairs) {
+        if (routesStale) {
+            reroute();
+        }
+        Set<String> dependents = new HashSet<>();
+        for (String currencyPair : currencyPairs) {
+            dependents.addAll(valuedThrough.getOrDefault(currencyPair, Set.of()));
+            if (!isQuoted(currencyPair)) {
+                dependents.add(currencyPair.substring(0, 3));
+                dependents.add(currencyPair.substring(3));
+            }
+        }
+        dependents.remove(reportingCurrency);
+        return dependents;
+    }
+
+    /**
+     * Prices the pair from the given quoted rates instead of the cache, e.g. rates
+     * as of a past time. Only pairs present in the map are used as legs, and the
+     * result is not cached.
+     */
+    public synchronized Optional<CrossRate> resolve(String currencyPair, Map<String, ExchangeRate> quotedRates) {
+        String base = currencyPair.substring(0, 3);
+        String quote = currencyPair.substring(3);
+        List<String> path = shortestPath(base, quote, quotedRates::containsKey);
+        if (path == null) {
+            return Optional.empty();
+        }
+        return price(currencyPair, base, path, leg -> Optional.ofNullable(quotedRates.get(leg)));
+    }
+
+    /**
+     * Pairs the pair can be priced from: the pair itself when quoted, plus the legs
+     * of the shortest route around it, in case the quote has no rate at the time
+     * being priced.
+     */
+    public synchronized Set<String> pricingPairs(String currencyPair) {
+        Set<String> pairs = new HashSet<>();
+        if (isQuoted(currencyPair)) {
+            pairs.add(currencyPair);
+        }
+        List<String> path = shortestPath(currencyPair.substring(0, 3), currencyPair.substring(3),
+                leg -> !leg.equals(currencyPair));
+        if (path != null) {
+            pairs.addAll(path);
+        }
+        return pairs;
+    }
+
+    private void recordRoute(String currency, List<String> legs) {
+        List<String> previous = valuationRoutes.put(currency, List.copyOf(legs));
+        if (previous != null) {
+            previous.forEach(leg -> valuedThrough.getOrDefault(leg, new HashSet<>()).remove(currency));
+        }
+        legs.forEach(leg -> valuedThrough.computeIfAbsent(leg, k -> new HashSet<>()).add(currency));
+    }
+
+    // Routes the currencies valued so far again on the current graph
+    private void reroute() {
+        List<String> currencies = List.copyOf(valuationRoutes.keySet());
+        valuationRoutes.clear();
+        valuedThrough.clear();
+        for (String currency : currencies) {
+            List<String> path = shortestPath(currency, reportingCurrency, leg -> true);
+            if (path != null) {
+                recordRoute(currency, path);
+            }
+        }
+        routesStale = false;
+    }
+
+    // Returns true if the pair was not yet part of the graph
+    private boolean addEdge(String currencyPair) {
+        String base = currencyPair.substring(0, 3);
+        String quote = currencyPair.substring(3);
+        String previous = edges.computeIfAbsent(base, k -> new HashMap<>()).putIfAbsent(quote, currencyPair);
+        edges.computeIfAbsent(quote, k -> new HashMap<>()).putIfAbsent(base, currencyPair);
+        return previous == null;
+    }
+
+    // Breadth-first search, so the first path found has the fewest legs
+    private List<String> shortestPath(String from, String to, Predicate<String> usableLeg) {
+        if (!edges.containsKey(from) || !edges.containsKey(to)) {
+            return null;
+        }
+        Map<String, String> reachedVia = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        reachedVia.put(from, null);
+        queue.add(from);
+
+        while (!queue.isEmpty()) {
+            String currency = queue.poll();
+            if (currency.equals(to)) {
+                LinkedList<String> legs = new LinkedList<>();
+                for (String node = to; reachedVia.get(node) != null; node = otherSide(reachedVia.get(node), node)) {
+                    legs.addFirst(reachedVia.get(node));
+                }
+                return legs;
+            }
+            for (Map.Entry<String, String> edge : edges.get(currency).entrySet()) {
+                if (!reachedVia.containsKey(edge.getKey()) && usableLeg.test(edge.getValue())) {
+                    reachedVia.put(edge.getKey(), edge.getValue());
+                    queue.add(edge.getKey());
+                }
+            }
+        }
+        return null;
+    }
+
+    private Optional<CrossRate> price(String key, String base, List<String> legs,
+                                      Function<String, Optional<ExchangeRate>> rateOf) {
+        BigDecimal rate = BigDecimal.ONE;
+        LocalDateTime oldest = null;
+        String current = base;
+
+        for (String leg : legs) {
+            Optional<ExchangeRate> legRate = rateOf.apply(leg);
+            if (legRate.isEmpty()) {
+                return Optional.empty();
+            }
+            ExchangeRate quoted = legRate.get();
+            if (leg.startsWith(current)) {
+                rate = rate.multiply(quoted.getRate(), MathContext.DECIMAL64);
+            } else {
+                rate = rate.divide(quoted.getRate(), MathContext.DECIMAL64);
+            }
+            current = otherSide(leg, current);
+            if (oldest == null || quoted.getTimestamp().isBefore(oldest)) {
+                oldest = quoted.getTimestamp();
+            }
+        }
+
+        BigDecimal result = legs.size() == 1 && legs.get(0).equals(key)
+                ? rate
+                : rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN);
+        return Optional.of(new CrossRate(key, result, oldest, List.copyOf(legs)));
+    }
+
+    private static String otherSide(String currencyPair, String currency) {
+        return currencyPair.startsWith(currency) ? currencyPair.substring(3) : currencyPair.substring(0, 3);
+    }
+}
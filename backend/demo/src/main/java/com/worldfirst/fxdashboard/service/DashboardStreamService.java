@@ -0,0 +1,195 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.event.PositionUpdatedEvent;
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.DashboardDelta;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes dashboard changes to SSE subscribers. Rate and position events are
+ * collected and turned into a single delta per coalescing interval, which is then
+ * shared by every subscriber. Each subscriber has at most one send in flight; while
+ * a send is in progress newer deltas are merged into the pending one, so a slow
+ * client gets fewer, larger updates instead of an unbounded backlog.
+ */
+@Slf4j
+@Service
+public class DashboardStreamService implements DisposableBean {
+    private final FXRiskService fxRiskService;
+    private final CrossRateEngine crossRateEngine;
+    private final long emitterTimeoutMillis;
+    private final ExecutorService sender;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, ExchangeRate> changedRates = new ConcurrentHashMap<>();
+    private final Set<String> changedCurrencies = ConcurrentHashMap.newKeySet();
+
+    public DashboardStreamService(
+            FXRiskService fxRiskService,
+            CrossRateEngine crossRateEngine,
+            @Value("${fx.stream.emitter-timeout:PT30M}") Duration emitterTimeout,
+            @Value("${fx.stream.sender-threads:4}") int senderThreads) {
+        this.fxRiskService = fxRiskService;
+        this.crossRateEngine = crossRateEngine;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Registered before the snapshot is built, so no delta published meanwhile is lost;
+        // deltas are held until the snapshot is out and re-applying one is harmless
+        subscribers.add(subscriber);
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(fxRiskService.getDashboardData()));
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriber.release();
+        log.debug("Dashboard subscriber added, {} active", subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onRatesUpdated(RateUpdatedEvent event) {
+        event.getRates().forEach(rate -> changedRates.merge(rate.getCurrencyPair(), rate,
+                (current, incoming) -> incoming.getTimestamp().isBefore(current.getTimestamp()) ? current : incoming));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionUpdated(PositionUpdatedEvent event) {
+        changedCurrencies.add(event.getPosition().getCurrency());
+    }
+
+    @Scheduled(fixedDelayString = "${fx.stream.coalesce-interval:PT0.5S}")
+    public void publishChanges() {
+        if (changedRates.isEmpty() && changedCurrencies.isEmpty()) {
+            return;
+        }
+        Map<String, ExchangeRate> rates = drain(changedRates);
+        Set<String> currencies = new HashSet<>();
+        changedCurrencies.forEach(currency -> {
+            if (changedCurrencies.remove(currency)) {
+                currencies.add(currency);
+            }
+        });
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // Includes currencies triangulated through a ticking pair, not just its two sides
+        currencies.addAll(crossRateEngine.dependentCurrencies(rates.keySet()));
+
+        DashboardDelta delta = new DashboardDelta(
+                fxRiskService.getPositions(currencies).stream()
+                        .collect(Collectors.toMap(CurrencyPosition::getCurrency, position -> position)),
+                rates,
+                fxRiskService.generateRiskAlerts(),
+                LocalDateTime.now()
+        );
+        subscribers.forEach(subscriber -> subscriber.offer(delta));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private static <K, V> Map<K, V> drain(Map<K, V> source) {
+        Map<K, V> drained = new HashMap<>();
+        source.keySet().forEach(key -> {
+            V value = source.remove(key);
+            if (value != null) {
+                drained.put(key, value);
+            }
+        });
+        return drained;
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<DashboardDelta> pending = new AtomicReference<>();
+        // Starts held so nothing is sent ahead of the snapshot
+        private final AtomicBoolean sending = new AtomicBoolean(true);
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void release() {
+            sending.set(false);
+            if (pending.get() != null && sending.compareAndSet(false, true)) {
+                sender.execute(this::drainPending);
+            }
+        }
+
+        void offer(DashboardDelta delta) {
+            pending.accumulateAndGet(delta, (current, incoming) ->
+                    current == null ? incoming : current.mergeWith(incoming));
+            if (sending.compareAndSet(false, true)) {
+                sender.execute(this::drainPending);
+            }
+        }
+
+        private void drainPending() {
+            try {
+                DashboardDelta delta;
+                while ((delta = pending.getAndSet(null)) != null) {
+                    emitter.send(SseEmitter.event().name("delta").data(delta));
+                }
+            } catch (Exception e) {
+                log.debug("Dropping dashboard subscriber: {}", e.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            // A delta may have arrived between the last poll and releasing the flag
+            if (pending.get() != null && sending.compareAndSet(false, true)) {
+                sender.execute(this::drainPending);
+            }
+        }
+    }
+}
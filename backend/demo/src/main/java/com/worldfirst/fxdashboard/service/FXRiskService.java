@@ -1,148 +1,291 @@
 package com.worldfirst.fxdashboard.service;
 
+import com.worldfirst.fxdashboard.event.PositionUpdatedEvent;
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
 import com.worldfirst.fxdashboard.model.*;
-import com.worldfirst.fxdashboard.model.enums.AlertLevel;
-import com.worldfirst.fxdashboard.model.enums.AlertStatus;
-import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import com.worldfirst.fxdashboard.model.enums.PositionUpdateStatus;
 import com.worldfirst.fxdashboard.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FXRiskService {
     private final CurrencyPositionRepository positionRepository;
+    private final PositionBatchRepository positionBatchRepository;
     private final RateRepository rateRepository;
-    //private final RateCache rateCache;
+    private final RateCache rateCache;
+    private final HistoricalRateService historicalRateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RiskAssessor riskAssessor;
+    private final RiskAlertEngine riskAlertEngine;
+    private final CrossRateEngine crossRateEngine;
+    private final ValueAtRiskEngine valueAtRiskEngine;
+    private final MetricsRegistry metricsRegistry;
 
     @Transactional(readOnly = true)
     public List<CurrencyPosition> getAllPositions() {
-        System.out.println(positionRepository.findAll());
-        return positionRepository.findAll().stream()
-                .map(this::enrichWithCurrentRates)
-                .collect(Collectors.toList());
+        List<CurrencyPosition> positions = metricsRegistry.time("db.positions.findAll", () -> positionRepository.findAll());
+        return enrichWithCurrentRates(positions);
+    }
+
+    /**
+     * The current book valued at the rates in effect at asOf. Balances are not
+     * versioned over time, so only the valuation is historical.
+     */
+    @Transactional(readOnly = true)
+    public List<CurrencyPosition> getAllPositions(LocalDateTime asOf) {
+        List<CurrencyPosition> positions = metricsRegistry.time("db.positions.findAll", () -> positionRepository.findAll());
+        Set<String> currencies = positions.stream()
+                .map(CurrencyPosition::getCurrency)
+                .collect(Collectors.toSet());
+        return metricsRegistry.time("service.positions.enrichAsOf",
+                () -> applyRates(positions, getValuationRates(currencies, asOf)));
+    }
+
+    /**
+     * Current positions for just the given currencies, enriched like the full book;
+     * for consumers that only need what changed.
+     */
+    @Transactional(readOnly = true)
+    public List<CurrencyPosition> getPositions(Collection<String> currencies) {
+        List<CurrencyPosition> positions = metricsRegistry.time("db.positions.findByCurrencies",
+                () -> positionBatchRepository.findByCurrencies(currencies));
+        return enrichWithCurrentRates(positions);
     }
 
     @Transactional
     public CurrencyPosition updatePosition(CurrencyPosition position) {
         //validatePosition(position);
-        calculateRiskLevel(position);
-        return positionRepository.save(position);
+        position.setRiskLevel(riskAssessor.calculateRiskLevel(position));
+        CurrencyPosition saved = positionRepository.save(position);
+        positionBatchRepository.incrementVersion(saved.getCurrency());
+        eventPublisher.publishEvent(new PositionUpdatedEvent(saved));
+        return saved;
     }
 
-    @Transactional(readOnly = true)
-    public List<RiskAlert> generateRiskAlerts() {
-        List<RiskAlert> alerts = new ArrayList<>();
+    /**
+     * Applies many position changes in one transaction and one statement. Each change
+     * only lands if the row is still at the version the caller read; the rest are
+     * reported back as conflicts or missing, never applied. Listeners receive the
+     * rows as stored, not the partial request.
+     */
+    @Transactional
+    public List<PositionUpdateResult> updatePositions(List<PositionUpdateRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PositionUpdateRequest> valid = new ArrayList<>();
+        List<CurrencyPosition> candidates = new ArrayList<>();
 
-        // Check for high-risk positions
-        positionRepository.findByRiskLevel(RiskLevel.HIGH)
-                .forEach(position -> alerts.add(createHighRiskAlert(position)));
+        for (PositionUpdateRequest request : requests) {
+            if (!request.isComplete()) {
+                continue;
+            }
+            CurrencyPosition position = new CurrencyPosition();
+            position.setCurrency(request.getCurrency());
+            position.setBalance(request.getBalance());
+            position.setPendingIncome(request.getPendingIncome());
+            position.setPendingPayments(request.getPendingPayments());
+            position.setRiskLevel(riskAssessor.calculateRiskLevel(position));
+            position.setLastUpdated(now);
+            valid.add(request);
+            candidates.add(position);
+        }
 
-        // Check for low balance positions
-        positionRepository.findLowBalancePositions(new BigDecimal("50000"))
-                .forEach(position -> alerts.add(createLowBalanceAlert(position)));
+        long[] expectedVersions = valid.stream().mapToLong(PositionUpdateRequest::getExpectedVersion).toArray();
+        CurrencyPosition[] updated = candidates.isEmpty()
+                ? new CurrencyPosition[0]
+                : positionBatchRepository.updateIfVersionMatches(candidates, expectedVersions);
 
-        return alerts;
-    }
+        Set<String> rejected = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (updated[i] != null) {
+                eventPublisher.publishEvent(new PositionUpdatedEvent(updated[i]));
+            } else {
+                rejected.add(candidates.get(i).getCurrency());
+            }
+        }
+        Map<String, Long> currentVersions = positionBatchRepository.findVersions(rejected);
 
-    private CurrencyPosition enrichWithCurrentRates(CurrencyPosition position) {
-        // Skip rate lookup for USD since it's the base currency
-        if (position.getCurrency().equals("USD")) {
-            position.setCurrentRate(BigDecimal.ONE);  // USD/USD rate is always 1.0
-            position.setRateTimestamp(LocalDateTime.now());
-            return position;
+        List<PositionUpdateResult> results = new ArrayList<>(requests.size());
+        int candidate = 0;
+        for (PositionUpdateRequest request : requests) {
+            if (!request.isComplete()) {
+                results.add(new PositionUpdateResult(request.getCurrency(), PositionUpdateStatus.INVALID, null, null));
+                continue;
+            }
+            CurrencyPosition position = candidates.get(candidate);
+            if (updated[candidate] != null) {
+                results.add(new PositionUpdateResult(position.getCurrency(), PositionUpdateStatus.UPDATED,
+                        request.getExpectedVersion() + 1, position.getRiskLevel()));
+            } else {
+                Long currentVersion = currentVersions.get(position.getCurrency());
+                results.add(new PositionUpdateResult(position.getCurrency(),
+                        currentVersion == null ? PositionUpdateStatus.NOT_FOUND : PositionUpdateStatus.VERSION_CONFLICT,
+                        currentVersion, null));
+            }
+            candidate++;
         }
+        return results;
+    }
 
-        String currencyPair = formatCurrencyPair(position.getCurrency());
-        ExchangeRate latestRate = rateRepository
-                .findTopByCurrencyPairOrderByTimestampDesc(currencyPair)
-                .orElseThrow(() -> new RuntimeException("Rate not found for " + currencyPair));
+    public Map<String, Long> getPositionVersions() {
+        return positionBatchRepository.findAllVersions();
+    }
 
-        position.setCurrentRate(latestRate.getRate());
-        position.setRateTimestamp(latestRate.getTimestamp());
+    /**
+     * Positions and alerts for the dashboard. Alerts are an in-memory snapshot, so
+     * only the positions touch the database, in this method's read-only transaction.
+     * lastUpdated is when this data was read. The REST endpoint serves a cached copy
+     * until positions, rates or alerts change, so there it stays put while the data
+     * does; it dates the data version, not the response.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboardData() {
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("positions", getAllPositions());
+        dashboard.put("alerts", generateRiskAlerts());
+        dashboard.put("lastUpdated", LocalDateTime.now());
+        return dashboard;
+    }
 
-        return position;
+    /**
+     * Dashboard positions valued as of a past time. Alerts are evaluated live and
+     * have no history, so they are left out rather than shown against old values.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboardData(LocalDateTime asOf) {
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("positions", getAllPositions(asOf));
+        dashboard.put("asOf", asOf);
+        dashboard.put("lastUpdated", LocalDateTime.now());
+        return dashboard;
     }
 
-    private String formatCurrencyPair(String currency) {
-        // USD is typically the quote currency except for EUR and GBP
-        if (currency.equals("EUR") || currency.equals("GBP")) {
-            return currency + "USD";
+    public List<RiskAlert> generateRiskAlerts() {
+        return metricsRegistry.time("service.alerts.snapshot", riskAlertEngine::getActiveAlerts);
+    }
+
+    public Optional<RiskAlert> acknowledgeAlert(Long alertId) {
+        return riskAlertEngine.acknowledge(alertId);
+    }
+
+    public Optional<RiskAlert> resolveAlert(Long alertId) {
+        return riskAlertEngine.resolve(alertId);
+    }
+
+    private List<CurrencyPosition> enrichWithCurrentRates(List<CurrencyPosition> positions) {
+        return metricsRegistry.time("service.positions.enrich", () -> applyCurrentRates(positions));
+    }
+
+    private List<CurrencyPosition> applyCurrentRates(List<CurrencyPosition> positions) {
+        return applyRates(positions, getValuationRates(positions.stream()
+                .map(CurrencyPosition::getCurrency)
+                .collect(Collectors.toSet())));
+    }
+
+    private List<CurrencyPosition> applyRates(List<CurrencyPosition> positions, Map<String, CrossRate> rates) {
+        for (CurrencyPosition position : positions) {
+            CrossRate rate = rates.get(position.getCurrency());
+            position.setCurrentRate(rate.getRate());
+            position.setRateTimestamp(rate.getTimestamp());
         }
-        // For other non-USD currencies, USD is the base currency
-        return "USD" + currency;
+        return positions;
     }
 
-    private void calculateRiskLevel(CurrencyPosition position) {
-        BigDecimal netPosition = position.getBalance()
-                .add(position.getPendingIncome())
-                .subtract(position.getPendingPayments());
+    /**
+     * Rate of each currency against the reporting currency. Quoted pairs are read in
+     * one cache pass, with misses loaded by a single bulk query; currencies without a
+     * quoted pair are triangulated by the cross-rate engine.
+     */
+    public Map<String, CrossRate> getValuationRates(Collection<String> currencies) {
+        String reportingCurrency = crossRateEngine.getReportingCurrency();
+        Set<String> quotedPairs = currencies.stream()
+                .filter(currency -> !currency.equals(reportingCurrency))
+                .map(crossRateEngine::quotePair)
+                .filter(crossRateEngine::isQuoted)
+                .collect(Collectors.toSet());
+        Map<String, ExchangeRate> latestRates =
+                rateCache.getLatestRates(quotedPairs, rateRepository::findLatestRates);
 
-        BigDecimal threshold = new BigDecimal("1000000"); // $1M threshold
+        return valuationRates(currencies, latestRates, LocalDateTime.now(), crossRateEngine::resolve,
+                currencyPair -> new RuntimeException("Rate not found for " + currencyPair));
+    }
 
-        if (netPosition.abs().compareTo(threshold) > 0) {
-            position.setRiskLevel(RiskLevel.HIGH);
-        } else if (netPosition.abs().compareTo(threshold.divide(BigDecimal.valueOf(2))) > 0) {
-            position.setRiskLevel(RiskLevel.MEDIUM);
-        } else {
-            position.setRiskLevel(RiskLevel.LOW);
+    /**
+     * Rate of each currency against the reporting currency as of a past time, from
+     * the last tick at or before it of the pairs those currencies are priced from.
+     * Throws IllegalArgumentException for a future time or when a currency had no
+     * rate yet.
+     */
+    public Map<String, CrossRate> getValuationRates(Collection<String> currencies, LocalDateTime asOf) {
+        if (asOf.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("asOf is in the future: " + asOf);
         }
+        String reportingCurrency = crossRateEngine.getReportingCurrency();
+        Set<String> pricingPairs = currencies.stream()
+                .filter(currency -> !currency.equals(reportingCurrency))
+                .flatMap(currency -> crossRateEngine.pricingPairs(crossRateEngine.quotePair(currency)).stream())
+                .collect(Collectors.toSet());
+        Map<String, ExchangeRate> ratesAsOf = historicalRateService.getRatesAsOf(pricingPairs, asOf);
+        return valuationRates(currencies, ratesAsOf, asOf,
+                currencyPair -> crossRateEngine.resolve(currencyPair, ratesAsOf),
+                currencyPair -> new IllegalArgumentException("No rate for " + currencyPair + " as of " + asOf));
     }
 
-    private RiskAlert createHighRiskAlert(CurrencyPosition position) {
-        return RiskAlert.builder()
-                .level(AlertLevel.HIGH)
-                .message(String.format("High risk position in %s: %s",
-                        position.getCurrency(),
-                        position.getBalance()))
-                .recommendation(generateRecommendation(position))
-                .timestamp(LocalDateTime.now())
-                .build();
-    }
-
-    private RiskAlert createLowBalanceAlert(CurrencyPosition position) {
-        BigDecimal netBalance = position.getBalance()
-                .add(position.getPendingIncome())
-                .subtract(position.getPendingPayments());
-
-        return RiskAlert.builder()
-                .level(AlertLevel.MEDIUM)  // Medium alert as it needs attention but might not be critical
-                .message(String.format("Low balance alert for %s: Current net position %s",
-                        position.getCurrency(),
-                        netBalance))
-                .recommendation(generateRecommendation(position))
-                .currency(position.getCurrency())
-                .timestamp(LocalDateTime.now())
-                .triggeredBy("LOW_BALANCE")
-                .thresholdValue(50000.0)  // Matches the threshold from findLowBalancePositions
-                .actualValue(netBalance.doubleValue())
-                .status(AlertStatus.ACTIVE)
-                .build();
-    }
-
-    private String generateRecommendation(CurrencyPosition position) {
-        BigDecimal netPosition = position.getBalance()
-                .add(position.getPendingIncome())
-                .subtract(position.getPendingPayments());
-
-        if (netPosition.compareTo(BigDecimal.ZERO) > 0) {
-            return String.format("Consider reducing %s position by converting to other currencies",
-                    position.getCurrency());
-        } else {
-            return String.format("Consider acquiring more %s to cover upcoming payments",
-                    position.getCurrency());
+    private Map<String, CrossRate> valuationRates(Collection<String> currencies,
+                                                  Map<String, ExchangeRate> quotedRates,
+                                                  LocalDateTime reportingTimestamp,
+                                                  Function<String, Optional<CrossRate>> triangulate,
+                                                  Function<String, RuntimeException> missing) {
+        String reportingCurrency = crossRateEngine.getReportingCurrency();
+        Map<String, CrossRate> rates = new HashMap<>();
+        for (String currency : currencies) {
+            // Reporting currency against itself is always 1.0
+            if (currency.equals(reportingCurrency)) {
+                rates.put(currency, new CrossRate(currency + currency, BigDecimal.ONE, reportingTimestamp, List.of()));
+                continue;
+            }
+            String currencyPair = crossRateEngine.quotePair(currency);
+            ExchangeRate quotedRate = quotedRates.get(currencyPair);
+            if (quotedRate != null) {
+                rates.put(currency, new CrossRate(currencyPair, quotedRate.getRate(), quotedRate.getTimestamp(),
+                        List.of(currencyPair)));
+                continue;
+            }
+            rates.put(currency, triangulate.apply(currencyPair)
+                    .orElseThrow(() -> missing.apply(currencyPair)));
         }
+        return rates;
     }
 
     public Optional<CurrencyPosition> getPosition(String currency) {
         return positionRepository.findByCurrency(currency)
-                .map(this::enrichWithCurrentRates);
+                .map(position -> enrichWithCurrentRates(List.of(position)).get(0));
+    }
+
+    public RateCache.Stats getRateCacheStats() {
+        return rateCache.getStats();
+    }
+
+    public Optional<CrossRate> getRate(String base, String quote) {
+        return crossRateEngine.resolve(base, quote);
+    }
+
+    public PortfolioRisk getPortfolioRisk() {
+        return valueAtRiskEngine.getPortfolioRisk();
     }
 }
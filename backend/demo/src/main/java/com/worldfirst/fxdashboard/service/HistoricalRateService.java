@@ -0,0 +1,118 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Quoted rates in effect at a past time, for point-in-time valuation. Only the
+ * pairs a caller asks for are probed, with one indexed query, and the results are
+ * kept per time for repeat requests, as month-end reports make; a later request at
+ * the same time loads just the pairs not probed yet. Ticks normally arrive after
+ * every cached time and leave the snapshots valid; a late or replayed tick at or
+ * before a snapshot's time drops that snapshot.
+ */
+@Service
+public class HistoricalRateService {
+    private final RateRepository rateRepository;
+    private final Map<LocalDateTime, Snapshot> snapshots;
+    // Loads in flight, flagged when a late tick lands mid-load so their result is not cached
+    private final Set<Load> loads = new HashSet<>();
+
+    public HistoricalRateService(RateRepository rateRepository,
+                                 @Value("${fx.as-of.snapshot-cache-size:16}") int snapshotCacheSize) {
+        this.rateRepository = rateRepository;
+        // Access-ordered, so the least recently requested time is evicted first
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDateTime, Snapshot> eldest) {
+                return size() > snapshotCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Last tick at or before asOf for each of the given pairs. Pairs with no tick
+     * by then are absent from the result.
+     */
+    public Map<String, ExchangeRate> getRatesAsOf(Collection<String> currencyPairs, LocalDateTime asOf) {
+        Map<String, ExchangeRate> rates = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        Load load;
+        synchronized (snapshots) {
+            Snapshot cached = snapshots.get(asOf);
+            for (String currencyPair : currencyPairs) {
+                if (cached != null && cached.probed.contains(currencyPair)) {
+                    ExchangeRate rate = cached.rates.get(currencyPair);
+                    if (rate != null) {
+                        rates.put(currencyPair, rate);
+                    }
+                } else {
+                    missing.add(currencyPair);
+                }
+            }
+            if (missing.isEmpty()) {
+                return rates;
+            }
+            load = new Load(asOf);
+            loads.add(load);
+        }
+        Map<String, ExchangeRate> loaded = rateRepository.findRatesAsOf(missing, asOf);
+        rates.putAll(loaded);
+        synchronized (snapshots) {
+            loads.remove(load);
+            if (!load.invalidated) {
+                Snapshot snapshot = snapshots.computeIfAbsent(asOf, k -> new Snapshot());
+                snapshot.probed.addAll(missing);
+                snapshot.rates.putAll(loaded);
+            }
+        }
+        return rates;
+    }
+
+    @EventListener
+    public void onRatesUpdated(RateUpdatedEvent event) {
+        LocalDateTime earliest = event.getRates().stream()
+                .map(ExchangeRate::getTimestamp)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+        if (earliest == null) {
+            return;
+        }
+        synchronized (snapshots) {
+            snapshots.keySet().removeIf(asOf -> !asOf.isBefore(earliest));
+            for (Load load : loads) {
+                if (!load.asOf.isBefore(earliest)) {
+                    load.invalidated = true;
+                }
+            }
+        }
+    }
+
+    // Pairs probed at one time, including those that had no tick by then
+    private static final class Snapshot {
+        private final Set<String> probed = new HashSet<>();
+        private final Map<String, ExchangeRate> rates = new HashMap<>();
+    }
+
+    // One per load rather than one per time, so concurrent loads of a time keep separate flags
+    private static final class Load {
+        private final LocalDateTime asOf;
+        private boolean invalidated;
+
+        private Load(LocalDateTime asOf) {
+            this.asOf = asOf;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.MetricsSnapshot;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class MetricsService {
+    private final MetricsRegistry metricsRegistry;
+    private final RateCache rateCache;
+    private final RateIngestionService rateIngestionService;
+    private final double staleRateSeconds;
+
+    public MetricsService(
+            MetricsRegistry metricsRegistry,
+            RateCache rateCache,
+            RateIngestionService rateIngestionService,
+            @Value("${fx.metrics.stale-rate-threshold:PT1M}") Duration staleRateThreshold) {
+        this.metricsRegistry = metricsRegistry;
+        this.rateCache = rateCache;
+        this.rateIngestionService = rateIngestionService;
+        this.staleRateSeconds = staleRateThreshold.toMillis() / 1000.0;
+    }
+
+    public MetricsSnapshot getSnapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Double> rateAgeSeconds = new TreeMap<>();
+        for (ExchangeRate rate : rateCache.snapshot()) {
+            rateAgeSeconds.put(rate.getCurrencyPair(),
+                    Duration.between(rate.getTimestamp(), now).toMillis() / 1000.0);
+        }
+        List<String> stalePairs = rateAgeSeconds.entrySet().stream()
+                .filter(entry -> entry.getValue() > staleRateSeconds)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        return new MetricsSnapshot(
+                metricsRegistry.getTimerStats(),
+                metricsRegistry.getCounters(),
+                rateAgeSeconds,
+                stalePairs,
+                rateCache.getStats(),
+                rateIngestionService.getStats(),
+                metricsRegistry.getSlowOperations(),
+                now
+        );
+    }
+}
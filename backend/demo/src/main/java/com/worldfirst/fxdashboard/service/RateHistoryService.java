@@ -0,0 +1,144 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.RateCandle;
+import com.worldfirst.fxdashboard.model.enums.CandleInterval;
+import com.worldfirst.fxdashboard.model.enums.ExportFormat;
+import com.worldfirst.fxdashboard.repository.RateCandleRepository;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@RequiredArgsConstructor
+public class RateHistoryService {
+    private final RateCandleRepository rateCandleRepository;
+    private final RateRepository rateRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fx.history.max-candles:10000}")
+    private long maxCandles;
+
+    @Value("${fx.history.max-tick-range:P1D}")
+    private Duration maxTickRange;
+
+    public List<RateCandle> getCandles(String currencyPair,
+                                       CandleInterval interval,
+                                       LocalDateTime start,
+                                       LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End must not be before start");
+        }
+        if (interval.bucketsBetween(start, end) > maxCandles) {
+            throw new IllegalArgumentException(String.format(
+                    "Range covers more than %d %s candles, use a wider interval", maxCandles, interval.getCode()));
+        }
+        return rateCandleRepository.findCandles(currencyPair, interval, start, end);
+    }
+
+    /**
+     * Raw ticks in the range, newest first. Wider ranges go through the export.
+     */
+    public List<ExchangeRate> getRates(String currencyPair, LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End must not be before start");
+        }
+        if (Duration.between(start, end).compareTo(maxTickRange) > 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Range is longer than %s, use candles or the export", maxTickRange));
+        }
+        return rateRepository.findRatesByTimeRange(currencyPair, start, end);
+    }
+
+    /**
+     * Writes every tick in the range to the stream as it is read from the database.
+     */
+    public void exportRates(String currencyPair,
+                            LocalDateTime start,
+                            LocalDateTime end,
+                            ExportFormat format,
+                            OutputStream out) throws IOException {
+        switch (format) {
+            case NDJSON -> exportNdjson(currencyPair, start, end, out);
+            case CSV -> exportCsv(currencyPair, start, end, out);
+        }
+    }
+
+    private void exportNdjson(String currencyPair, LocalDateTime start, LocalDateTime end,
+                              OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            AtomicBoolean written = new AtomicBoolean();
+            rateRepository.streamRatesByTimeRange(currencyPair, start, end, rate -> {
+                try {
+                    writer.write(rate);
+                    written.set(true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            // Separator only goes between values, so terminate the last line; an empty range stays empty
+            if (written.get()) {
+                out.write('\n');
+            }
+        }
+    }
+
+    private void exportCsv(String currencyPair, LocalDateTime start, LocalDateTime end,
+                           OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write("id,currency_pair,rate,bid,ask,timestamp,source,volatility_index\n");
+            rateRepository.streamRatesByTimeRange(currencyPair, start, end, rate -> {
+                try {
+                    writer.write(toCsvRow(rate));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private String toCsvRow(ExchangeRate rate) {
+        return String.join(",",
+                String.valueOf(rate.getId()),
+                rate.getCurrencyPair(),
+                plain(rate.getRate()),
+                plain(rate.getBid()),
+                plain(rate.getAsk()),
+                rate.getTimestamp().toString(),
+                csvField(rate.getSource()),
+                plain(rate.getVolatilityIndex())) + "\n";
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
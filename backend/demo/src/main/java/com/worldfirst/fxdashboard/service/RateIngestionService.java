@@ -0,0 +1,279 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.RatePartitionManager;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Buffers incoming ticks in a bounded queue and writes them to exchange_rates in
+ * JDBC batches. A batch is flushed once it reaches the configured size or the flush
+ * interval has elapsed since its first tick, whichever comes first. Producers block
+ * for up to the offer timeout when the queue is full and are rejected after that.
+ * Ticks are validated before they are queued, since one bad row fails its whole
+ * batch at flush time, long after the producer was told it was accepted. That
+ * includes ticks dated outside the exchange_rates partitions.
+ */
+@Slf4j
+@Service
+public class RateIngestionService implements SmartLifecycle {
+    private static final Pattern CURRENCY_PAIR = Pattern.compile("[A-Z]{6}");
+    private static final int MAX_INTEGER_DIGITS = 4;  // exchange_rates columns are DECIMAL(10,6)
+    private static final int MAX_SOURCE_LENGTH = 50;
+
+    private final RateRepository rateRepository;
+    private final RatePartitionManager ratePartitionManager;
+    private final BlockingQueue<ExchangeRate> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile long startedAtNanos;
+    private Thread flusher;
+
+    public RateIngestionService(
+            RateRepository rateRepository,
+            RatePartitionManager ratePartitionManager,
+            @Value("${fx.ingestion.queue-capacity:10000}") int queueCapacity,
+            @Value("${fx.ingestion.batch-size:500}") int batchSize,
+            @Value("${fx.ingestion.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${fx.ingestion.offer-timeout:PT1S}") Duration offerTimeout) {
+        this.rateRepository = rateRepository;
+        this.ratePartitionManager = ratePartitionManager;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+    }
+
+    /**
+     * Queues a tick for persistence. Blocks while the queue is full, up to the
+     * offer timeout, and returns false if the tick could not be queued in time.
+     * Throws IllegalArgumentException for a tick that could not be stored.
+     */
+    public boolean submit(ExchangeRate rate) throws InterruptedException {
+        validate(rate);
+        validateTimestamp(rate);
+        return enqueue(rate);
+    }
+
+    /**
+     * Queues all ticks in order, stopping at the first one that cannot be queued.
+     * Returns how many were accepted. Every tick is validated first, so an invalid
+     * one rejects the whole call with IllegalArgumentException and queues nothing.
+     */
+    public int submitAll(List<ExchangeRate> rates) throws InterruptedException {
+        rates.forEach(RateIngestionService::validate);
+        rates.forEach(this::validateTimestamp);
+        int accepted = 0;
+        for (ExchangeRate rate : rates) {
+            if (!enqueue(rate)) {
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private boolean enqueue(ExchangeRate rate) throws InterruptedException {
+        if (rate.getTimestamp() == null) {
+            rate.setTimestamp(LocalDateTime.now());
+        }
+        if (!queue.offer(rate, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            return false;
+        }
+        submitted.increment();
+        return true;
+    }
+
+    private static void validate(ExchangeRate rate) {
+        if (rate == null || rate.getCurrencyPair() == null || !CURRENCY_PAIR.matcher(rate.getCurrencyPair()).matches()) {
+            throw new IllegalArgumentException("Invalid currency pair in tick: " + rate);
+        }
+        if (!isStorablePositive(rate.getRate())) {
+            throw new IllegalArgumentException("Invalid rate for " + rate.getCurrencyPair() + ": " + rate.getRate());
+        }
+        if ((rate.getBid() != null && !isStorablePositive(rate.getBid()))
+                || (rate.getAsk() != null && !isStorablePositive(rate.getAsk()))
+                || (rate.getBid() != null && rate.getAsk() != null && rate.getBid().compareTo(rate.getAsk()) > 0)) {
+            throw new IllegalArgumentException("Invalid bid/ask for " + rate.getCurrencyPair()
+                    + ": " + rate.getBid() + "/" + rate.getAsk());
+        }
+        if (rate.getVolatilityIndex() != null
+                && (rate.getVolatilityIndex().signum() < 0 || !fitsColumn(rate.getVolatilityIndex()))) {
+            throw new IllegalArgumentException("Invalid volatility index for " + rate.getCurrencyPair()
+                    + ": " + rate.getVolatilityIndex());
+        }
+        if (rate.getSource() != null && rate.getSource().length() > MAX_SOURCE_LENGTH) {
+            throw new IllegalArgumentException("Source longer than " + MAX_SOURCE_LENGTH + " characters");
+        }
+    }
+
+    private void validateTimestamp(ExchangeRate rate) {
+        if (rate.getTimestamp() != null && !ratePartitionManager.covers(rate.getTimestamp())) {
+            throw new IllegalArgumentException("Timestamp outside the stored window for "
+                    + rate.getCurrencyPair() + ": " + rate.getTimestamp());
+        }
+    }
+
+    private static boolean isStorablePositive(BigDecimal value) {
+        return value != null && value.signum() > 0 && fitsColumn(value);
+    }
+
+    private static boolean fitsColumn(BigDecimal value) {
+        return value.precision() - value.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        startedAtNanos = System.nanoTime();
+        flusher = new Thread(this::runFlushLoop, "rate-ingestion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Rate ingestion started (batch size {}, queue capacity {})",
+                batchSize, queue.remainingCapacity());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Rate ingestion stopped, {} ticks left unflushed", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runFlushLoop() {
+        List<ExchangeRate> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits for the first tick, then keeps collecting until the batch is full or the interval elapses
+    private void fillBatch(List<ExchangeRate> batch) throws InterruptedException {
+        ExchangeRate first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            ExchangeRate next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<ExchangeRate> batch) {
+        long start = System.nanoTime();
+        try {
+            rateRepository.saveAll(batch);
+            persisted.add(batch.size());
+        } catch (Exception e) {
+            log.warn("Batch of {} rates failed, retrying row by row: {}", batch.size(), e.getMessage());
+            saveEach(batch);
+        }
+        long elapsed = System.nanoTime() - start;
+        flushes.increment();
+        totalFlushNanos.add(elapsed);
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    // Isolates whatever made the batch fail, so one bad row does not drop the others
+    private void saveEach(List<ExchangeRate> batch) {
+        for (ExchangeRate rate : batch) {
+            try {
+                rateRepository.save(rate);
+                persisted.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.error("Failed to persist rate {}: {}", rate, e.getMessage(), e);
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long flushCount = flushes.sum();
+        long persistedCount = persisted.sum();
+        double uptimeSeconds = (System.nanoTime() - startedAtNanos) / 1e9;
+        return new Stats(
+                submitted.sum(),
+                rejected.sum(),
+                persistedCount,
+                failed.sum(),
+                queue.size(),
+                flushCount,
+                uptimeSeconds > 0 ? persistedCount / uptimeSeconds : 0.0,
+                flushCount > 0 ? totalFlushNanos.sum() / flushCount / 1e6 : 0.0,
+                lastFlushNanos.get() / 1e6,
+                maxFlushNanos.get() / 1e6
+        );
+    }
+
+    @lombok.Value
+    public static class Stats {
+        long submitted;
+        long rejected;
+        long persisted;
+        long failed;
+        int queueDepth;
+        long flushes;
+        double ticksPerSecond;
+        double avgFlushMillis;
+        double lastFlushMillis;
+        double maxFlushMillis;
+    }
+}
@@ -0,0 +1,485 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.SimulatorSettings;
+import com.worldfirst.fxdashboard.model.SimulatorStatus;
+import com.worldfirst.fxdashboard.model.enums.ExportFormat;
+import com.worldfirst.fxdashboard.model.enums.SimulatorMode;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Drives the ingestion path with synthetic or recorded ticks for soak and load
+ * tests. The generator random-walks N pairs at a fixed total tick rate; replay
+ * feeds back a file written by the rate export endpoint (CSV or NDJSON) at its
+ * recorded pace, accelerated, or as fast as ingestion accepts it. Either way the
+ * ticks go through {@link RateIngestionService}, so batching, persistence, the
+ * candle rollup, the cache and every rate listener see them like live ticks.
+ *
+ * One simulation runs at a time, on its own thread. The generator is open loop:
+ * when ingestion pushes back it catches up afterwards instead of lowering the
+ * offered rate, so latency under overload is not hidden.
+ *
+ * Simulated ticks are indistinguishable from market data once stored, so the
+ * simulator and its endpoints only exist with fx.simulator.enabled=true, and the
+ * generator walks synthetic pairs unless real ones are named explicitly.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "fx.simulator.enabled", havingValue = "true")
+public class RateSimulator implements DisposableBean {
+    private static final String SOURCE = "SIMULATOR";
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 3600;
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_BATCH = 5_000;
+    private static final Pattern PAIR = Pattern.compile("[A-Z]{6}");
+    private static final Set<String> RESERVED = Set.of("USD", "EUR", "GBP", "JPY", "CNY");
+    private static final String CSV_HEADER = "id,currency_pair,rate,bid,ask,timestamp,source,volatility_index";
+
+    private final RateIngestionService rateIngestionService;
+    private final RateCache rateCache;
+    private final ObjectMapper objectMapper;
+    private final Path replayDirectory;
+    private final SimulatorSettings defaults;
+    private final boolean autoStart;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "rate-simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private Run current;   // Guarded by lock
+    private Run last;
+    private Future<?> task;
+
+    public RateSimulator(
+            RateIngestionService rateIngestionService,
+            RateCache rateCache,
+            ObjectMapper objectMapper,
+            @Value("${fx.simulator.replay-dir:replay}") Path replayDirectory,
+            @Value("${fx.simulator.pair-count:10}") int pairCount,
+            @Value("${fx.simulator.ticks-per-second:100}") double ticksPerSecond,
+            @Value("${fx.simulator.annual-volatility:0.10}") double annualVolatility,
+            @Value("${fx.simulator.spread-bps:2}") double spreadBps,
+            @Value("${fx.simulator.auto-start:false}") boolean autoStart) {
+        this.rateIngestionService = rateIngestionService;
+        this.rateCache = rateCache;
+        this.objectMapper = objectMapper;
+        this.replayDirectory = replayDirectory.toAbsolutePath().normalize();
+        this.defaults = SimulatorSettings.builder()
+                .pairCount(pairCount)
+                .ticksPerSecond(ticksPerSecond)
+                .annualVolatility(annualVolatility)
+                .spreadBps(spreadBps)
+                .build();
+        this.autoStart = autoStart;
+    }
+
+    // After CacheWarmer, so the walks start from the warmed latest rates
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (autoStart) {
+            startGenerator(new SimulatorSettings());
+        }
+    }
+
+    /**
+     * Starts the random-walk generator. Throws IllegalArgumentException for invalid
+     * settings and IllegalStateException if a simulation is already running.
+     */
+    public SimulatorStatus startGenerator(SimulatorSettings requested) {
+        SimulatorSettings settings = withDefaults(requested);
+        if (settings.getTicksPerSecond() <= 0 || settings.getAnnualVolatility() < 0
+                || settings.getSpreadBps() < 0 || settings.getPairCount() <= 0) {
+            throw new IllegalArgumentException("Invalid simulator settings: " + settings);
+        }
+        List<Walk> walks = createWalks(settings);
+        long durationNanos = settings.getDurationSeconds() == null
+                ? Long.MAX_VALUE
+                : TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+
+        Run run = new Run(SimulatorMode.GENERATING, walks.size() + " pairs");
+        start(run, () -> generate(run, walks, settings.getTicksPerSecond(), settings.getSpreadBps(), durationNanos));
+        log.info("Tick generator started: {} pairs at {} ticks/s", walks.size(), settings.getTicksPerSecond());
+        return getStatus();
+    }
+
+    /**
+     * Replays a recorded tick file from the replay directory. A speed of 1 keeps the
+     * recorded gaps between ticks, 10 replays ten times faster and 0 or less sends as
+     * fast as ingestion accepts. With rebaseTimestamps the ticks are stamped with the
+     * time they are replayed, so they land in current partitions and count as fresh.
+     */
+    public SimulatorStatus startReplay(String fileName, double speed, boolean rebaseTimestamps) {
+        Path file = replayDirectory.resolve(fileName).normalize();
+        if (!file.startsWith(replayDirectory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No replay file " + fileName + " in " + replayDirectory);
+        }
+        ExportFormat format = formatOf(file);
+
+        Run run = new Run(SimulatorMode.REPLAYING, file.getFileName().toString());
+        start(run, () -> replay(run, file, format, speed, rebaseTimestamps));
+        log.info("Replaying {} at {}x", file, speed > 0 ? speed : "max");
+        return getStatus();
+    }
+
+    public SimulatorStatus stop() {
+        synchronized (lock) {
+            if (task != null) {
+                task.cancel(true);
+            }
+        }
+        return getStatus();
+    }
+
+    /**
+     * The running simulation, or the last one with mode IDLE once it has finished.
+     */
+    public SimulatorStatus getStatus() {
+        synchronized (lock) {
+            if (current != null) {
+                return current.toStatus(current.mode);
+            }
+            if (last != null) {
+                return last.toStatus(SimulatorMode.IDLE);
+            }
+            return new SimulatorStatus(SimulatorMode.IDLE, null, null, 0, 0, 0.0);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+    }
+
+    private void start(Run run, Job job) {
+        synchronized (lock) {
+            if (current != null) {
+                throw new IllegalStateException("A " + current.mode + " simulation is already running");
+            }
+            current = run;
+            task = runner.submit(() -> {
+                try {
+                    job.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("Simulation {} failed: {}", run.source, e.getMessage(), e);
+                } finally {
+                    finish(run);
+                }
+            });
+        }
+    }
+
+    private void finish(Run run) {
+        run.endNanos = System.nanoTime();
+        synchronized (lock) {
+            current = null;
+            last = run;
+            task = null;
+        }
+        log.info("Simulation {} finished: {} ticks submitted, {} dropped",
+                run.source, run.submitted.sum(), run.dropped.sum());
+    }
+
+    private void generate(Run run, List<Walk> walks, double ticksPerSecond, double spreadBps,
+                          long durationNanos) throws InterruptedException {
+        List<ExchangeRate> batch = new ArrayList<>();
+        long emitted = 0;
+        int next = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long elapsed = System.nanoTime() - run.startNanos;
+            if (elapsed >= durationNanos) {
+                return;
+            }
+            long due = (long) (elapsed / 1e9 * ticksPerSecond);
+            LocalDateTime timestamp = LocalDateTime.now();
+            while (emitted < due) {
+                batch.add(walks.get(next).step(run.startNanos + elapsed, spreadBps, timestamp));
+                next = (next + 1) % walks.size();
+                emitted++;
+                if (batch.size() == MAX_BATCH) {
+                    submit(run, batch);
+                }
+            }
+            submit(run, batch);
+            LockSupport.parkNanos(SLICE_NANOS);
+        }
+    }
+
+    private void replay(Run run, Path file, ExportFormat format, double speed,
+                        boolean rebaseTimestamps) throws IOException, InterruptedException {
+        List<ExchangeRate> batch = new ArrayList<>();
+        LocalDateTime firstRecorded = null;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (line.isBlank() || line.startsWith(CSV_HEADER)) {
+                    continue;
+                }
+                ExchangeRate rate = format == ExportFormat.CSV
+                        ? parseCsvRow(line)
+                        : objectMapper.readValue(line, ExchangeRate.class);
+                if (firstRecorded == null) {
+                    firstRecorded = rate.getTimestamp();
+                }
+
+                if (speed > 0 && firstRecorded != null && rate.getTimestamp() != null) {
+                    long offset = (long) (Duration.between(firstRecorded, rate.getTimestamp()).toNanos() / speed);
+                    long wait = run.startNanos + offset - System.nanoTime();
+                    if (wait > SLICE_NANOS) {
+                        // Send what is due before sleeping until this tick's turn
+                        submit(run, batch);
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                rate.setId(null);
+                if (rebaseTimestamps) {
+                    rate.setTimestamp(LocalDateTime.now());
+                }
+                batch.add(rate);
+                if (batch.size() == MAX_BATCH) {
+                    submit(run, batch);
+                }
+            }
+        }
+        submit(run, batch);
+    }
+
+    // Hands the batch to ingestion and clears it; whatever ingestion rejects is counted as dropped
+    private void submit(Run run, List<ExchangeRate> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int accepted = rateIngestionService.submitAll(batch);
+        run.submitted.add(accepted);
+        run.dropped.add(batch.size() - accepted);
+        batch.clear();
+    }
+
+    private SimulatorSettings withDefaults(SimulatorSettings requested) {
+        return SimulatorSettings.builder()
+                .pairs(requested.getPairs())
+                .pairCount(requested.getPairs() != null && !requested.getPairs().isEmpty()
+                        ? Integer.valueOf(requested.getPairs().size())
+                        : orDefault(requested.getPairCount(), defaults.getPairCount()))
+                .ticksPerSecond(orDefault(requested.getTicksPerSecond(), defaults.getTicksPerSecond()))
+                .annualVolatility(orDefault(requested.getAnnualVolatility(), defaults.getAnnualVolatility()))
+                .spreadBps(orDefault(requested.getSpreadBps(), defaults.getSpreadBps()))
+                .durationSeconds(requested.getDurationSeconds())
+                .build();
+    }
+
+    // Explicit pairs, else synthetic USD pairs that no other source quotes
+    private List<Walk> createWalks(SimulatorSettings settings) {
+        Set<String> pairs = new LinkedHashSet<>();
+        if (settings.getPairs() != null && !settings.getPairs().isEmpty()) {
+            for (String pair : settings.getPairs()) {
+                String normalized = pair.toUpperCase();
+                if (!PAIR.matcher(normalized).matches()) {
+                    throw new IllegalArgumentException("Invalid currency pair: " + pair);
+                }
+                pairs.add(normalized);
+            }
+        } else {
+            for (int i = 0; pairs.size() < settings.getPairCount(); i++) {
+                if (i >= 26 * 26 * 26) {
+                    throw new IllegalArgumentException("Not enough synthetic pairs for " + settings.getPairCount());
+                }
+                String code = syntheticCode(i);
+                if (!RESERVED.contains(code) && !isQuotedByOtherSource("USD" + code)) {
+                    pairs.add("USD" + code);
+                }
+            }
+        }
+
+        Random random = new Random();
+        long now = System.nanoTime();
+        return pairs.stream()
+                .map(pair -> new Walk(
+                        pair,
+                        rateCache.peek(pair)
+                                .map(rate -> rate.getRate().doubleValue())
+                                .orElseGet(() -> 0.5 + random.nextDouble() * 1.5),
+                        // Spread the pairs' volatility around the target so they do not move in lockstep
+                        settings.getAnnualVolatility() * (0.5 + random.nextDouble()),
+                        now,
+                        random))
+                .toList();
+    }
+
+    // Earlier simulator runs may already quote a synthetic pair; anything else is real data
+    private boolean isQuotedByOtherSource(String pair) {
+        return rateCache.peek(pair)
+                .map(rate -> !SOURCE.equals(rate.getSource()))
+                .orElse(false);
+    }
+
+    private static ExportFormat formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        for (ExportFormat format : ExportFormat.values()) {
+            if (name.endsWith("." + format.getFileExtension())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Replay files must be ."
+                + ExportFormat.CSV.getFileExtension() + " or ." + ExportFormat.NDJSON.getFileExtension());
+    }
+
+    // Reads the row format written by RateHistoryService's CSV export
+    private static ExchangeRate parseCsvRow(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 8) {
+            throw new IllegalArgumentException("Expected 8 fields in replay row: " + line);
+        }
+        ExchangeRate rate = new ExchangeRate();
+        rate.setCurrencyPair(fields.get(1));
+        rate.setRate(decimal(fields.get(2)));
+        rate.setBid(decimal(fields.get(3)));
+        rate.setAsk(decimal(fields.get(4)));
+        rate.setTimestamp(LocalDateTime.parse(fields.get(5)));
+        rate.setSource(fields.get(6).isEmpty() ? null : fields.get(6));
+        rate.setVolatilityIndex(decimal(fields.get(7)));
+        return rate;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value.isEmpty() ? null : new BigDecimal(value);
+    }
+
+    private static String syntheticCode(int i) {
+        return new String(new char[] {
+                (char) ('A' + i / (26 * 26) % 26),
+                (char) ('A' + i / 26 % 26),
+                (char) ('A' + i % 26)
+        });
+    }
+
+    private static <T> T orDefault(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+
+    @FunctionalInterface
+    private interface Job {
+        void run() throws Exception;
+    }
+
+    private static class Run {
+        private final SimulatorMode mode;
+        private final String source;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private volatile long endNanos;
+
+        Run(SimulatorMode mode, String source) {
+            this.mode = mode;
+            this.source = source;
+        }
+
+        SimulatorStatus toStatus(SimulatorMode reportedMode) {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            double seconds = (end - startNanos) / 1e9;
+            long submittedCount = submitted.sum();
+            return new SimulatorStatus(reportedMode, source, startedAt, submittedCount, dropped.sum(),
+                    seconds > 0 ? submittedCount / seconds : 0.0);
+        }
+    }
+
+    // Geometric Brownian motion on the mid, stepped by the real time since the pair's last tick
+    private static class Walk {
+        private final String pair;
+        private final double annualVolatility;
+        private final BigDecimal volatilityIndex;
+        private final Random random;
+        private double mid;
+        private long lastNanos;
+
+        Walk(String pair, double mid, double annualVolatility, long startNanos, Random random) {
+            this.pair = pair;
+            this.mid = mid;
+            this.annualVolatility = annualVolatility;
+            this.volatilityIndex = BigDecimal.valueOf(annualVolatility).setScale(6, RoundingMode.HALF_EVEN);
+            this.lastNanos = startNanos;
+            this.random = random;
+        }
+
+        ExchangeRate step(long nowNanos, double spreadBps, LocalDateTime timestamp) {
+            double years = Math.max(0, nowNanos - lastNanos) / 1e9 / SECONDS_PER_YEAR;
+            mid *= Math.exp(annualVolatility * Math.sqrt(years) * random.nextGaussian()
+                    - 0.5 * annualVolatility * annualVolatility * years);
+            lastNanos = nowNanos;
+
+            double halfSpread = mid * spreadBps / 20_000;
+            ExchangeRate rate = new ExchangeRate();
+            rate.setCurrencyPair(pair);
+            rate.setRate(scaled(mid));
+            rate.setBid(scaled(mid - halfSpread));
+            rate.setAsk(scaled(mid + halfSpread));
+            rate.setTimestamp(timestamp);
+            rate.setSource(SOURCE);
+            rate.setVolatilityIndex(volatilityIndex);
+            return rate;
+        }
+
+        private static BigDecimal scaled(double value) {
+            return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_EVEN);
+        }
+    }
+}
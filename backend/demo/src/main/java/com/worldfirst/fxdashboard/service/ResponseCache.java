@@ -0,0 +1,113 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldfirst.fxdashboard.event.PositionUpdatedEvent;
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version counters for positions, rates and alerts, and the serialised JSON of the
+ * read endpoints keyed by the versions it was built from. A poll that finds the
+ * versions unchanged is answered from the cached bytes, or with a 304 when the
+ * client already holds them.
+ *
+ * ETags carry the startup time so a restarted instance never matches a tag handed
+ * out by its predecessor. Timestamps inside a cached body, such as the dashboard's
+ * lastUpdated, are from when it was built and are not refreshed per response.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResponseCache {
+    private final ObjectMapper objectMapper;
+    private final RiskAlertEngine riskAlertEngine;
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong positionsVersion = new AtomicLong();
+    private final AtomicLong ratesVersion = new AtomicLong();
+    private final ConcurrentHashMap<String, CachedBody> bodies = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionUpdated(PositionUpdatedEvent event) {
+        positionsVersion.incrementAndGet();
+    }
+
+    @EventListener
+    public void onRatesUpdated(RateUpdatedEvent event) {
+        ratesVersion.incrementAndGet();
+    }
+
+    // Positions are served enriched with current rates, so both versions count
+    public String positionsTag(String resource) {
+        return tag(resource, positionsVersion.get(), ratesVersion.get());
+    }
+
+    public String alertsTag(String resource) {
+        return tag(resource, riskAlertEngine.getVersion());
+    }
+
+    public String dashboardTag(String resource) {
+        return tag(resource, positionsVersion.get(), ratesVersion.get(), riskAlertEngine.getVersion());
+    }
+
+    /**
+     * JSON for the resource at the given tag, serialising the body only when the
+     * cached copy was built at a different tag. The tag must be taken before the
+     * body is built, so a change racing with the build at worst causes a rebuild.
+     */
+    public byte[] getJson(String resource, String etag, Supplier<?> body) {
+        return findJson(resource, etag, () -> Optional.of(body.get())).orElseThrow();
+    }
+
+    public Optional<byte[]> findJson(String resource, String etag, Supplier<? extends Optional<?>> body) {
+        CachedBody cached = bodies.get(resource);
+        if (cached != null && cached.getEtag().equals(etag)) {
+            return Optional.of(cached.getJson());
+        }
+        Optional<?> value = body.get();
+        if (value.isEmpty()) {
+            bodies.remove(resource);
+            return Optional.empty();
+        }
+        byte[] json = serialise(resource, value.get());
+        bodies.put(resource, new CachedBody(etag, json));
+        return Optional.of(json);
+    }
+
+    /**
+     * JSON for a body that is never cached or tagged, such as a point-in-time view.
+     */
+    public byte[] toJson(String resource, Object body) {
+        return serialise(resource, body);
+    }
+
+    private byte[] serialise(String resource, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise " + resource, e);
+        }
+    }
+
+    private String tag(String resource, long... versions) {
+        StringBuilder etag = new StringBuilder("\"").append(resource).append('-').append(epoch);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    @lombok.Value
+    private static class CachedBody {
+        String etag;
+        byte[] json;
+    }
+}
@@ -0,0 +1,184 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.event.PositionUpdatedEvent;
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.event.RiskAlertRaisedEvent;
+import com.worldfirst.fxdashboard.event.ValueAtRiskUpdatedEvent;
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the current set of risk alerts in memory. Only the currency whose position
+ * changed, or whose value a tick moved, is re-evaluated, against an {@link AlertStore} that deduplicates,
+ * applies hysteresis and cooldown, and expires alerts on a schedule. Readers get an
+ * immutable snapshot of copies that is rebuilt on change, so reading alerts does no
+ * work and never sees an alert the store is mutating. Alerts handed out by the
+ * other methods are copies too.
+ * A {@link RiskAlertRaisedEvent} is published only for genuinely new alerts, which
+ * is what notifiers should listen to.
+ */
+@Slf4j
+@Service
+public class RiskAlertEngine {
+    private final RiskAssessor riskAssessor;
+    private final CrossRateEngine crossRateEngine;
+    private final MetricsRegistry metricsRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<RiskAssessor.AlertRule> rules;
+    private final AlertStore alertStore;
+
+    private final Map<String, CurrencyPosition> positions = new HashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile List<RiskAlert> activeAlerts = List.of();
+
+    public RiskAlertEngine(
+            RiskAssessor riskAssessor,
+            CrossRateEngine crossRateEngine,
+            MetricsRegistry metricsRegistry,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${fx.alerts.ttl:PT24H}") Duration alertTtl,
+            @Value("${fx.alerts.cooldown:PT5M}") Duration cooldown,
+            @Value("${fx.alerts.hysteresis:0.05}") double hysteresis) {
+        this.riskAssessor = riskAssessor;
+        this.crossRateEngine = crossRateEngine;
+        this.metricsRegistry = metricsRegistry;
+        this.eventPublisher = eventPublisher;
+        this.rules = riskAssessor.getAlertRules();
+        this.alertStore = new AlertStore(alertTtl, cooldown, hysteresis);
+    }
+
+    public List<RiskAlert> getActiveAlerts() {
+        return activeAlerts;
+    }
+
+    /**
+     * Bumped whenever the active alerts or their status change.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Called by CacheWarmer after the Value-at-Risk engine, whose limits feed the alert rules
+    public void initialize(List<CurrencyPosition> allPositions) {
+        synchronized (this) {
+            allPositions.forEach(this::evaluate);
+            publishSnapshot();
+        }
+        log.info("Risk alert engine initialised with {} active alerts", activeAlerts.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPositionUpdated(PositionUpdatedEvent event) {
+        metricsRegistry.time("service.alerts.onPositionUpdated", () -> {
+            evaluate(event.getPosition());
+            publishSnapshot();
+        });
+    }
+
+    @EventListener
+    public synchronized void onRatesUpdated(RateUpdatedEvent event) {
+        metricsRegistry.time("service.alerts.onRatesUpdated", () -> reevaluateForRates(event.getRates()));
+    }
+
+    private void reevaluateForRates(List<ExchangeRate> rates) {
+        Set<String> pairs = rates.stream()
+                .map(ExchangeRate::getCurrencyPair)
+                .collect(Collectors.toSet());
+        boolean evaluated = false;
+        for (String currency : crossRateEngine.dependentCurrencies(pairs)) {
+            CurrencyPosition position = positions.get(currency);
+            if (position != null) {
+                evaluate(position);
+                evaluated = true;
+            }
+        }
+        if (evaluated) {
+            publishSnapshot();
+        }
+    }
+
+    @EventListener
+    public synchronized void onValueAtRiskUpdated(ValueAtRiskUpdatedEvent event) {
+        metricsRegistry.time("service.alerts.onValueAtRiskUpdated", () -> {
+            event.getChangedCurrencies().stream()
+                    .map(positions::get)
+                    .filter(Objects::nonNull)
+                    .forEach(this::evaluate);
+            publishSnapshot();
+        });
+    }
+
+    public synchronized Optional<RiskAlert> acknowledge(Long alertId) {
+        Optional<RiskAlert> alert = alertStore.findById(alertId);
+        alert.ifPresent(acknowledged -> {
+            acknowledged.acknowledge();
+            publishSnapshot();
+        });
+        return alert.map(RiskAlertEngine::copy);
+    }
+
+    public synchronized Optional<RiskAlert> resolve(Long alertId) {
+        Optional<RiskAlert> alert = alertStore.resolve(alertId, LocalDateTime.now());
+        alert.ifPresent(resolved -> publishSnapshot());
+        return alert.map(RiskAlertEngine::copy);
+    }
+
+    @Scheduled(fixedDelayString = "${fx.alerts.sweep-interval:PT10S}")
+    public synchronized void sweepExpired() {
+        int expired = metricsRegistry.time("service.alerts.sweep", () -> alertStore.sweep(LocalDateTime.now()));
+        if (expired > 0) {
+            log.info("Expired {} risk alerts", expired);
+            publishSnapshot();
+        }
+    }
+
+    // Every rule is built even when its condition is false, so hysteresis can see the current value
+    private void evaluate(CurrencyPosition position) {
+        positions.put(position.getCurrency(), position);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (RiskAssessor.AlertRule rule : rules) {
+            RiskAlert current = rule.getFactory().apply(position);
+            if (rule.getCondition().test(position)) {
+                alertStore.raise(current, now)
+                        .ifPresent(raised -> eventPublisher.publishEvent(new RiskAlertRaisedEvent(copy(raised))));
+            } else {
+                alertStore.clear(position.getCurrency(), rule.getTrigger(), current.getActualValue(), now);
+            }
+        }
+    }
+
+    private void publishSnapshot() {
+        activeAlerts = alertStore.getActive().stream()
+                .sorted(Comparator.comparing(RiskAlert::getId))
+                .map(RiskAlertEngine::copy)
+                .toList();
+        version.incrementAndGet();
+    }
+
+    // The store mutates its alerts in place under the engine lock; nothing outside it may share them
+    private static RiskAlert copy(RiskAlert alert) {
+        return alert.toBuilder().build();
+    }
+}
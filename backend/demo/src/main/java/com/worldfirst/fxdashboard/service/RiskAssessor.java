@@ -0,0 +1,245 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.NetExposure;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.model.enums.AlertLevel;
+import com.worldfirst.fxdashboard.model.enums.AlertStatus;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Risk classification and alert rules for a single position.
+ *
+ * Threshold checks run on {@link NetExposure} scaled longs, computed once per
+ * classification or alert. Exact integer arithmetic at four decimals gives the same
+ * answer as the BigDecimal calculation for every amount that fits, and anything
+ * that does not fit falls back to BigDecimal, so results never differ between the
+ * two paths (see RiskAssessorTest).
+ *
+ * The notional level is raised further when the currency's standalone Value-at-Risk
+ * breaches the limits configured on {@link ValueAtRiskEngine}. That VaR is computed
+ * from the position being classified, not read from the engine's latest run, which
+ * still reflects the exposure before the change. The VaR limit alert instead reads
+ * the latest run, the same value whose limit crossings the engine announces with
+ * ValueAtRiskUpdatedEvent, so the alert is re-evaluated whenever its answer changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class RiskAssessor {
+    public static final String HIGH_RISK_TRIGGER = "HIGH_RISK";
+    public static final String LOW_BALANCE_TRIGGER = "LOW_BALANCE";
+    public static final String VAR_LIMIT_TRIGGER = "VAR_LIMIT";
+    public static final BigDecimal LOW_BALANCE_THRESHOLD = new BigDecimal("50000");
+
+    private static final BigDecimal HIGH_RISK_THRESHOLD = new BigDecimal("1000000"); // $1M threshold
+    private static final BigDecimal MEDIUM_RISK_THRESHOLD = HIGH_RISK_THRESHOLD.divide(BigDecimal.valueOf(2));
+
+    private static final long HIGH_RISK_THRESHOLD_SCALED = NetExposure.toScaled(HIGH_RISK_THRESHOLD);
+    private static final long MEDIUM_RISK_THRESHOLD_SCALED = NetExposure.toScaled(MEDIUM_RISK_THRESHOLD);
+    private static final long LOW_BALANCE_THRESHOLD_SCALED = NetExposure.toScaled(LOW_BALANCE_THRESHOLD);
+
+    private final ValueAtRiskEngine valueAtRiskEngine;
+
+    // Every alert condition with the factory for its alert, at the engine's latest VaR
+    @Getter
+    private final List<AlertRule> alertRules = alertRules(this::latestValueAtRisk);
+
+    /**
+     * The alert rules with the VaR limit judged on the given per-position VaR, for
+     * positions valued at rates other than the live ones, such as a scenario's.
+     */
+    public List<AlertRule> alertRules(ToDoubleFunction<CurrencyPosition> valueAtRisk) {
+        return List.of(
+                new AlertRule(HIGH_RISK_TRIGGER, this::isHighRisk, this::createHighRiskAlert),
+                new AlertRule(LOW_BALANCE_TRIGGER, this::isLowBalance, this::createLowBalanceAlert),
+                new AlertRule(VAR_LIMIT_TRIGGER,
+                        position -> isValueAtRiskBreached(valueAtRisk.applyAsDouble(position)),
+                        position -> createValueAtRiskAlert(position, valueAtRisk.applyAsDouble(position)))
+        );
+    }
+
+    public RiskLevel calculateRiskLevel(CurrencyPosition position) {
+        return calculateRiskLevel(position, valueAtRiskEngine.getValueAtRisk(position));
+    }
+
+    public RiskLevel calculateRiskLevel(CurrencyPosition position, double valueAtRisk) {
+        RiskLevel notionalLevel = calculateNotionalRiskLevel(position);
+        RiskLevel varLevel = classifyValueAtRisk(valueAtRisk);
+        return varLevel.compareTo(notionalLevel) > 0 ? varLevel : notionalLevel;
+    }
+
+    // Exposure thresholds only, for books the Value-at-Risk engine does not track
+    public RiskLevel calculateNotionalRiskLevel(CurrencyPosition position) {
+        try {
+            return classify(NetExposure.scaledNet(position));
+        } catch (ArithmeticException e) {
+            return classifyExact(netPosition(position));
+        }
+    }
+
+    public RiskLevel classifyValueAtRisk(double valueAtRisk) {
+        if (valueAtRisk > valueAtRiskEngine.getHighVarLimit()) {
+            return RiskLevel.HIGH;
+        } else if (valueAtRisk > valueAtRiskEngine.getMediumVarLimit()) {
+            return RiskLevel.MEDIUM;
+        } else {
+            return RiskLevel.LOW;
+        }
+    }
+
+    public RiskLevel classify(long scaledNet) {
+        long magnitude = scaledNet == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(scaledNet);
+
+        if (magnitude > HIGH_RISK_THRESHOLD_SCALED) {
+            return RiskLevel.HIGH;
+        } else if (magnitude > MEDIUM_RISK_THRESHOLD_SCALED) {
+            return RiskLevel.MEDIUM;
+        } else {
+            return RiskLevel.LOW;
+        }
+    }
+
+    private RiskLevel classifyExact(BigDecimal netPosition) {
+        if (netPosition.abs().compareTo(HIGH_RISK_THRESHOLD) > 0) {
+            return RiskLevel.HIGH;
+        } else if (netPosition.abs().compareTo(MEDIUM_RISK_THRESHOLD) > 0) {
+            return RiskLevel.MEDIUM;
+        } else {
+            return RiskLevel.LOW;
+        }
+    }
+
+    public boolean isHighRisk(CurrencyPosition position) {
+        return position.getRiskLevel() == RiskLevel.HIGH;
+    }
+
+    // Same condition as CurrencyPositionRepository.findLowBalancePositions
+    public boolean isLowBalance(CurrencyPosition position) {
+        try {
+            return isLowBalance(NetExposure.toScaled(position.getBalance()));
+        } catch (ArithmeticException e) {
+            return position.getBalance().compareTo(LOW_BALANCE_THRESHOLD) < 0;
+        }
+    }
+
+    public boolean isLowBalance(long scaledBalance) {
+        return scaledBalance < LOW_BALANCE_THRESHOLD_SCALED;
+    }
+
+    public boolean isValueAtRiskBreached(CurrencyPosition position) {
+        return isValueAtRiskBreached(latestValueAtRisk(position));
+    }
+
+    public boolean isValueAtRiskBreached(double valueAtRisk) {
+        return valueAtRisk > valueAtRiskEngine.getMediumVarLimit();
+    }
+
+    public RiskAlert createValueAtRiskAlert(CurrencyPosition position) {
+        return createValueAtRiskAlert(position, latestValueAtRisk(position));
+    }
+
+    public RiskAlert createValueAtRiskAlert(CurrencyPosition position, double valueAtRisk) {
+        boolean high = valueAtRisk > valueAtRiskEngine.getHighVarLimit();
+
+        return RiskAlert.builder()
+                .level(high ? AlertLevel.HIGH : AlertLevel.MEDIUM)
+                .message(String.format("Value-at-Risk limit breached for %s: %.2f %s",
+                        position.getCurrency(),
+                        valueAtRisk,
+                        valueAtRiskEngine.getPortfolioRisk().getReportingCurrency()))
+                .recommendation(generateRecommendation(position))
+                .currency(position.getCurrency())
+                .timestamp(LocalDateTime.now())
+                .triggeredBy(VAR_LIMIT_TRIGGER)
+                .thresholdValue(high ? valueAtRiskEngine.getHighVarLimit() : valueAtRiskEngine.getMediumVarLimit())
+                .actualValue(valueAtRisk)
+                .status(AlertStatus.ACTIVE)
+                .build();
+    }
+
+    public RiskAlert createHighRiskAlert(CurrencyPosition position) {
+        BigDecimal netPosition = netPosition(position);
+
+        return RiskAlert.builder()
+                .level(AlertLevel.HIGH)
+                .message(String.format("High risk position in %s: %s",
+                        position.getCurrency(),
+                        position.getBalance()))
+                .recommendation(recommendation(position, netPosition.signum() > 0))
+                .currency(position.getCurrency())
+                .timestamp(LocalDateTime.now())
+                .triggeredBy(HIGH_RISK_TRIGGER)
+                .actualValue(netPosition.doubleValue())
+                .status(AlertStatus.ACTIVE)
+                .build();
+    }
+
+    // Reports the balance the condition tests, so hysteresis compares like with like
+    public RiskAlert createLowBalanceAlert(CurrencyPosition position) {
+        BigDecimal balance = position.getBalance();
+
+        return RiskAlert.builder()
+                .level(AlertLevel.MEDIUM)  // Medium alert as it needs attention but might not be critical
+                .message(String.format("Low balance alert for %s: Current balance %s",
+                        position.getCurrency(),
+                        balance))
+                .recommendation(generateRecommendation(position))
+                .currency(position.getCurrency())
+                .timestamp(LocalDateTime.now())
+                .triggeredBy(LOW_BALANCE_TRIGGER)
+                .thresholdValue(LOW_BALANCE_THRESHOLD.doubleValue())
+                .actualValue(balance.doubleValue())
+                .status(AlertStatus.ACTIVE)
+                .build();
+    }
+
+    public String generateRecommendation(CurrencyPosition position) {
+        return recommendation(position, isNetLong(position));
+    }
+
+    private String recommendation(CurrencyPosition position, boolean netLong) {
+        if (netLong) {
+            return String.format("Consider reducing %s position by converting to other currencies",
+                    position.getCurrency());
+        } else {
+            return String.format("Consider acquiring more %s to cover upcoming payments",
+                    position.getCurrency());
+        }
+    }
+
+    private boolean isNetLong(CurrencyPosition position) {
+        try {
+            return NetExposure.scaledNet(position) > 0;
+        } catch (ArithmeticException e) {
+            return netPosition(position).compareTo(BigDecimal.ZERO) > 0;
+        }
+    }
+
+    private double latestValueAtRisk(CurrencyPosition position) {
+        return valueAtRiskEngine.getValueAtRisk(position.getCurrency());
+    }
+
+    private BigDecimal netPosition(CurrencyPosition position) {
+        return position.getBalance()
+                .add(position.getPendingIncome())
+                .subtract(position.getPendingPayments());
+    }
+
+    @Value
+    public static class AlertRule {
+        String trigger;
+        Predicate<CurrencyPosition> condition;
+        Function<CurrencyPosition, RiskAlert> factory;
+    }
+}
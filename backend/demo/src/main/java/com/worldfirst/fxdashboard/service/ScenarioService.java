@@ -0,0 +1,208 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.model.Scenario;
+import com.worldfirst.fxdashboard.model.ScenarioReport;
+import com.worldfirst.fxdashboard.model.ScenarioResult;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Revalues the book under shocked rates and cash flows. The current positions are
+ * captured once as immutable snapshots; each scenario then works on its own copies,
+ * reusing the live risk-level and alert rules, on a dedicated fork-join pool. Each
+ * copy carries its shocked rate, and its Value-at-Risk is computed from its shocked
+ * exposure and value rather than read from the live engine. Nothing is written back
+ * to the database.
+ */
+@Slf4j
+@Service
+public class ScenarioService implements DisposableBean {
+    private final FXRiskService fxRiskService;
+    private final CrossRateEngine crossRateEngine;
+    private final RiskAssessor riskAssessor;
+    private final ValueAtRiskEngine valueAtRiskEngine;
+    private final ForkJoinPool pool;
+
+    public ScenarioService(FXRiskService fxRiskService,
+                           CrossRateEngine crossRateEngine,
+                           RiskAssessor riskAssessor,
+                           ValueAtRiskEngine valueAtRiskEngine,
+                           @Value("${fx.scenarios.parallelism:0}") int parallelism) {
+        this.fxRiskService = fxRiskService;
+        this.crossRateEngine = crossRateEngine;
+        this.riskAssessor = riskAssessor;
+        this.valueAtRiskEngine = valueAtRiskEngine;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Throws IllegalArgumentException for a shock of -100% or worse, which leaves
+     * a currency without a rate, and for a shock on the reporting currency, whose
+     * value is 1 by definition; shock the other currencies against it instead.
+     */
+    public ScenarioReport runScenarios(List<Scenario> scenarios) {
+        String reportingCurrency = crossRateEngine.getReportingCurrency();
+        scenarios.forEach(scenario -> validate(scenario, reportingCurrency));
+        long start = System.currentTimeMillis();
+        List<PositionSnapshot> book = snapshotBook(reportingCurrency);
+        BigDecimal baseValue = book.stream()
+                .map(snapshot -> snapshot.netPosition().multiply(snapshot.getValueRate(), MathContext.DECIMAL64))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2, RoundingMode.HALF_EVEN);
+
+        List<ScenarioResult> results;
+        try {
+            results = pool.submit(() -> scenarios.parallelStream()
+                    .map(scenario -> evaluate(scenario, book, baseValue))
+                    .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Scenario run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Scenario run failed", e.getCause());
+        }
+
+        ScenarioResult worst = results.stream()
+                .min(Comparator.comparing(ScenarioResult::getProfitAndLoss))
+                .orElse(null);
+        return new ScenarioReport(
+                reportingCurrency,
+                baseValue,
+                results,
+                worst != null ? worst.getName() : null,
+                worst != null ? worst.getProfitAndLoss() : BigDecimal.ZERO,
+                System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private static void validate(Scenario scenario, String reportingCurrency) {
+        if (scenario.getRateShocks() == null) {
+            return;
+        }
+        scenario.getRateShocks().forEach((currency, shock) -> {
+            if (currency.equals(reportingCurrency)) {
+                throw new IllegalArgumentException("Cannot shock the reporting currency " + currency);
+            }
+            if (shock == null || !(shock > -1.0)) {
+                throw new IllegalArgumentException("Invalid rate shock for " + currency + ": " + shock);
+            }
+        });
+    }
+
+    private List<PositionSnapshot> snapshotBook(String reportingCurrency) {
+        List<PositionSnapshot> book = new ArrayList<>();
+        for (CurrencyPosition position : fxRiskService.getAllPositions()) {
+            BigDecimal valueRate = crossRateEngine.resolve(position.getCurrency(), reportingCurrency)
+                    .orElseThrow(() -> new RuntimeException("Rate not found for "
+                            + position.getCurrency() + reportingCurrency))
+                    .getRate();
+            book.add(new PositionSnapshot(
+                    position.getCurrency(),
+                    position.getBalance(),
+                    position.getPendingIncome(),
+                    position.getPendingPayments(),
+                    position.getCurrentRate(),
+                    crossRateEngine.quotePair(position.getCurrency()).startsWith(position.getCurrency()),
+                    valueRate));
+        }
+        return book;
+    }
+
+    private ScenarioResult evaluate(Scenario scenario, List<PositionSnapshot> book, BigDecimal baseValue) {
+        Map<String, Double> rateShocks = scenario.getRateShocks() != null ? scenario.getRateShocks() : Map.of();
+        Map<String, BigDecimal> cashFlows = scenario.getCashFlows() != null ? scenario.getCashFlows() : Map.of();
+
+        BigDecimal totalValue = BigDecimal.ZERO;
+        Map<RiskLevel, Long> byRiskLevel = new EnumMap<>(RiskLevel.class);
+        List<String> highRisk = new ArrayList<>();
+        List<RiskAlert> alerts = new ArrayList<>();
+        Map<String, Double> valuesAtRisk = new HashMap<>();
+        List<RiskAssessor.AlertRule> alertRules =
+                riskAssessor.alertRules(position -> valuesAtRisk.get(position.getCurrency()));
+
+        for (PositionSnapshot snapshot : book) {
+            BigDecimal shock = BigDecimal.ONE.add(BigDecimal.valueOf(rateShocks.getOrDefault(snapshot.getCurrency(), 0.0)));
+            BigDecimal valueRate = snapshot.getValueRate().multiply(shock, MathContext.DECIMAL64);
+            CurrencyPosition shocked = snapshot.toPosition(
+                    cashFlows.getOrDefault(snapshot.getCurrency(), BigDecimal.ZERO), shock);
+            double valueAtRisk = valueAtRiskEngine.getValueAtRisk(shocked, valueRate.doubleValue());
+            valuesAtRisk.put(snapshot.getCurrency(), valueAtRisk);
+            RiskLevel riskLevel = riskAssessor.calculateRiskLevel(shocked, valueAtRisk);
+            shocked.setRiskLevel(riskLevel);
+
+            BigDecimal netPosition = shocked.getBalance()
+                    .add(shocked.getPendingIncome())
+                    .subtract(shocked.getPendingPayments());
+            totalValue = totalValue.add(netPosition.multiply(valueRate, MathContext.DECIMAL64));
+
+            byRiskLevel.merge(riskLevel, 1L, Long::sum);
+            if (riskLevel == RiskLevel.HIGH) {
+                highRisk.add(snapshot.getCurrency());
+            }
+            for (RiskAssessor.AlertRule rule : alertRules) {
+                if (rule.getCondition().test(shocked)) {
+                    alerts.add(rule.getFactory().apply(shocked));
+                }
+            }
+        }
+
+        totalValue = totalValue.setScale(2, RoundingMode.HALF_EVEN);
+        return new ScenarioResult(
+                scenario.getName(),
+                totalValue,
+                totalValue.subtract(baseValue),
+                byRiskLevel,
+                highRisk,
+                alerts);
+    }
+
+    @lombok.Value
+    private static class PositionSnapshot {
+        String currency;
+        BigDecimal balance;
+        BigDecimal pendingIncome;
+        BigDecimal pendingPayments;
+        BigDecimal currentRate;
+        boolean quotedAsBase;  // currentRate is the currency's value, not its inverse
+        BigDecimal valueRate;  // One unit of the currency in reporting currency
+
+        BigDecimal netPosition() {
+            return balance.add(pendingIncome).subtract(pendingPayments);
+        }
+
+        // A fresh, scenario-local position; the snapshot itself is never modified
+        CurrencyPosition toPosition(BigDecimal cashFlow, BigDecimal shock) {
+            CurrencyPosition position = new CurrencyPosition();
+            position.setCurrency(currency);
+            position.setBalance(balance);
+            position.setPendingIncome(cashFlow.signum() > 0 ? pendingIncome.add(cashFlow) : pendingIncome);
+            position.setPendingPayments(cashFlow.signum() < 0 ? pendingPayments.subtract(cashFlow) : pendingPayments);
+            position.setCurrentRate(quotedAsBase
+                    ? currentRate.multiply(shock, MathContext.DECIMAL64)
+                    : currentRate.divide(shock, MathContext.DECIMAL64));
+            return position;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
+import com.worldfirst.fxdashboard.model.ClientPosition;
+import com.worldfirst.fxdashboard.model.CrossRate;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.repository.TenantPositionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Positions and alerts for individual client books. Each call reads only the
+ * client's own partition and values it against the shared market rates, so its
+ * cost depends on the size of that book, not on how many clients there are.
+ *
+ * Risk levels use the notional thresholds: Value-at-Risk is tracked for the house
+ * book only, so the VaR limit rule does not apply to client books.
+ */
+@Service
+@RequiredArgsConstructor
+public class TenantRiskService {
+    private final TenantPositionRepository tenantPositionRepository;
+    private final FXRiskService fxRiskService;
+    private final CrossRateEngine crossRateEngine;
+    private final RiskAssessor riskAssessor;
+    private final MetricsRegistry metricsRegistry;
+
+    public List<ClientPosition> getPositions(String clientId) {
+        return enrichWithCurrentRates(metricsRegistry.time("db.clientPositions.findByClient",
+                () -> tenantPositionRepository.findByClient(clientId)));
+    }
+
+    public List<ClientPosition> getAccountPositions(String clientId, String accountId) {
+        return enrichWithCurrentRates(metricsRegistry.time("db.clientPositions.findByAccount",
+                () -> tenantPositionRepository.findByAccount(clientId, accountId)));
+    }
+
+    public Optional<ClientPosition> getPosition(String clientId, String accountId, String currency) {
+        return tenantPositionRepository.find(clientId, accountId, currency)
+                .map(position -> enrichWithCurrentRates(List.of(position)).get(0));
+    }
+
+    /**
+     * Stores the position, classifying its risk first. Empty when the caller sent a
+     * version and the stored row has moved on since. Throws IllegalArgumentException
+     * for a currency with no rate to the reporting currency, which could never be
+     * valued.
+     */
+    public Optional<ClientPosition> updatePosition(ClientPosition position) {
+        String currency = position.getCurrency();
+        if (!currency.equals(crossRateEngine.getReportingCurrency())
+                && crossRateEngine.resolve(currency, crossRateEngine.getReportingCurrency()).isEmpty()) {
+            throw new IllegalArgumentException("No rate for currency " + currency);
+        }
+        position.setRiskLevel(riskAssessor.calculateNotionalRiskLevel(position.toCurrencyPosition()));
+        position.setLastUpdated(LocalDateTime.now());
+        return tenantPositionRepository.save(position)
+                .map(version -> {
+                    position.setVersion(version);
+                    return position;
+                });
+    }
+
+    /**
+     * Alerts evaluated on the client's book at request time. They are not stored, so
+     * they carry no id and cannot be acknowledged or resolved; clientId, accountId and
+     * currency identify them.
+     */
+    public List<RiskAlert> getAlerts(String clientId) {
+        List<RiskAlert> alerts = new ArrayList<>();
+        for (ClientPosition clientPosition : tenantPositionRepository.findByClient(clientId)) {
+            CurrencyPosition position = clientPosition.toCurrencyPosition();
+            for (RiskAssessor.AlertRule rule : riskAssessor.getAlertRules()) {
+                if (rule.getTrigger().equals(RiskAssessor.VAR_LIMIT_TRIGGER) || !rule.getCondition().test(position)) {
+                    continue;
+                }
+                RiskAlert alert = rule.getFactory().apply(position);
+                alert.setClientId(clientPosition.getClientId());
+                alert.setAccountId(clientPosition.getAccountId());
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    private List<ClientPosition> enrichWithCurrentRates(List<ClientPosition> positions) {
+        if (positions.isEmpty()) {
+            return positions;
+        }
+        Map<String, CrossRate> rates = fxRiskService.getValuationRates(positions.stream()
+                .map(ClientPosition::getCurrency)
+                .collect(Collectors.toSet()));
+        for (ClientPosition position : positions) {
+            CrossRate rate = rates.get(position.getCurrency());
+            position.setCurrentRate(rate.getRate());
+            position.setRateTimestamp(rate.getTimestamp());
+        }
+        return positions;
+    }
+}
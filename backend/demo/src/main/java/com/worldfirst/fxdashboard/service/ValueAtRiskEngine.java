@@ -0,0 +1,377 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.event.PositionUpdatedEvent;
+import com.worldfirst.fxdashboard.event.RateUpdatedEvent;
+import com.worldfirst.fxdashboard.event.ValueAtRiskUpdatedEvent;
+import com.worldfirst.fxdashboard.model.CrossRate;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.model.NetExposure;
+import com.worldfirst.fxdashboard.model.PortfolioRisk;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming Value-at-Risk for the book in reporting currency.
+ *
+ * Volatility is tracked per quoted pair as an EWMA of squared log returns per
+ * second, updated in O(1) on every tick and seeded from volatility_index. A
+ * currency's volatility is the sum of the variances of the legs it is priced
+ * through. Correlations come from a one-factor model over returns sampled on a
+ * fixed clock: each currency's EWMA correlation c with the book's average return
+ * gives the correlation of two currencies as c_i * c_j. The cost is linear in the
+ * size of the book, in memory and per sample, and does not depend on tick volume.
+ * VaR = z * sqrt(horizon * w'Pw), where w is exposure times volatility and P the
+ * modelled correlation matrix, which reduces to
+ * w'Pw = sum(w_i^2) + (sum(w_i c_i))^2 - sum((w_i c_i)^2).
+ */
+@Slf4j
+@Service
+public class ValueAtRiskEngine {
+    private static final double TRADING_DAYS_PER_YEAR = 252;
+    private static final double SECONDS_PER_DAY = 86_400;
+    private static final int MIN_FACTOR_CAPACITY = 16;
+
+    private final CrossRateEngine crossRateEngine;
+    private final RateCache rateCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final double tickLambda;
+    private final double sampleLambda;
+    private final int minCorrelationSamples;
+    private final double zScore;
+    private final double horizonDays;
+    private final double defaultAnnualVolatility;
+    private final double mediumVarLimit;
+    private final double highVarLimit;
+
+    private final Map<String, PairVolatility> pairVolatilities = new ConcurrentHashMap<>();
+
+    // Per-currency state, indexed by factorIndex and sized ahead of the factor count; guarded by this
+    private final Map<String, Integer> factorIndex = new HashMap<>();
+    private final List<String> factors = new ArrayList<>();
+    private double[] netPositions = new double[0];
+    private double[] values = new double[0];
+    private double[] lastLogValues = new double[0];
+    private double[] returnVariance = new double[0];
+    private double[] marketCovariance = new double[0];  // With the average return
+    private double marketVariance;
+    private long samples;
+
+    private volatile PortfolioRisk latest;
+
+    public ValueAtRiskEngine(
+            CrossRateEngine crossRateEngine,
+            RateCache rateCache,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${fx.var.tick-lambda:0.97}") double tickLambda,
+            @Value("${fx.var.sample-lambda:0.97}") double sampleLambda,
+            @Value("${fx.var.min-correlation-samples:30}") int minCorrelationSamples,
+            @Value("${fx.var.z-score:2.326}") double zScore,
+            @Value("${fx.var.horizon-days:1}") double horizonDays,
+            @Value("${fx.var.default-volatility:0.10}") double defaultAnnualVolatility,
+            @Value("${fx.var.medium-limit:100000}") double mediumVarLimit,
+            @Value("${fx.var.high-limit:250000}") double highVarLimit) {
+        this.crossRateEngine = crossRateEngine;
+        this.rateCache = rateCache;
+        this.eventPublisher = eventPublisher;
+        this.tickLambda = tickLambda;
+        this.sampleLambda = sampleLambda;
+        this.minCorrelationSamples = minCorrelationSamples;
+        this.zScore = zScore;
+        this.horizonDays = horizonDays;
+        this.defaultAnnualVolatility = defaultAnnualVolatility;
+        this.mediumVarLimit = mediumVarLimit;
+        this.highVarLimit = highVarLimit;
+        this.latest = new PortfolioRisk(crossRateEngine.getReportingCurrency(), zScore, horizonDays,
+                0.0, Map.of(), LocalDateTime.now(), 0L);
+    }
+
+    public PortfolioRisk getPortfolioRisk() {
+        return latest;
+    }
+
+    /**
+     * Standalone VaR of a currency from the latest computation, or 0 if it has none.
+     */
+    public double getValueAtRisk(String currency) {
+        PortfolioRisk.CurrencyRisk risk = latest.getCurrencies().get(currency);
+        return risk == null ? 0.0 : risk.getValueAtRisk();
+    }
+
+    /**
+     * Standalone VaR the position would have at its own net exposure, priced at the
+     * currency's current value and volatility. For classifying a change before it
+     * is applied, when the latest computation still holds the old exposure.
+     */
+    public double getValueAtRisk(CurrencyPosition position) {
+        return getValueAtRisk(position, resolveValue(position.getCurrency()).orElse(0.0));
+    }
+
+    // As above, priced at the given value of one unit in reporting currency
+    public double getValueAtRisk(CurrencyPosition position, double value) {
+        double volatility = Math.sqrt(currencyVarianceRate(position.getCurrency()));
+        return standaloneValueAtRisk(netPosition(position) * value * volatility);
+    }
+
+    public double getMediumVarLimit() {
+        return mediumVarLimit;
+    }
+
+    public double getHighVarLimit() {
+        return highVarLimit;
+    }
+
+    // Called by CacheWarmer once rates and the cross-rate graph are in place
+    public void initialize(List<CurrencyPosition> positions) {
+        rateCache.snapshot().forEach(this::seed);
+        synchronized (this) {
+            ensureCapacity(factors.size() + positions.size());
+            positions.forEach(this::track);
+            recompute();
+        }
+        log.info("Value-at-Risk engine initialised for {} currencies", factors.size());
+    }
+
+    @EventListener
+    public void onRatesUpdated(RateUpdatedEvent event) {
+        event.getRates().forEach(this::onTick);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPositionUpdated(PositionUpdatedEvent event) {
+        track(event.getPosition());
+        recompute();
+    }
+
+    @Scheduled(fixedDelayString = "${fx.var.sample-interval:PT10S}")
+    public synchronized void sample() {
+        boolean sampled = false;
+        for (int i = 0; i < factors.size(); i++) {
+            OptionalDouble value = resolveValue(factors.get(i));
+            if (value.isEmpty()) {
+                continue;
+            }
+            values[i] = value.getAsDouble();
+            sampled = true;
+        }
+        if (!sampled) {
+            return;
+        }
+
+        int n = factors.size();
+        double[] returns = new double[n];
+        double marketReturn = 0.0;
+        int priced = 0;
+        for (int i = 0; i < n; i++) {
+            if (values[i] <= 0.0) {
+                continue;  // Not priceable yet, contributes no return
+            }
+            double logValue = Math.log(values[i]);
+            returns[i] = Double.isNaN(lastLogValues[i]) ? 0.0 : logValue - lastLogValues[i];
+            lastLogValues[i] = logValue;
+            marketReturn += returns[i];
+            priced++;
+        }
+        marketReturn = priced > 0 ? marketReturn / priced : 0.0;
+
+        for (int i = 0; i < n; i++) {
+            returnVariance[i] = sampleLambda * returnVariance[i] + (1 - sampleLambda) * returns[i] * returns[i];
+            marketCovariance[i] = sampleLambda * marketCovariance[i] + (1 - sampleLambda) * returns[i] * marketReturn;
+        }
+        marketVariance = sampleLambda * marketVariance + (1 - sampleLambda) * marketReturn * marketReturn;
+        samples++;
+        recompute();
+    }
+
+    // O(1) per tick: one EWMA step on the pair's variance per second
+    private void onTick(ExchangeRate rate) {
+        double logRate = Math.log(rate.getRate().doubleValue());
+        long timestampMillis = rate.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        pairVolatilities.compute(rate.getCurrencyPair(), (pair, state) -> {
+            if (state == null) {
+                return new PairVolatility(initialVarianceRate(rate), logRate, timestampMillis);
+            }
+            if (timestampMillis > state.lastTimestampMillis) {
+                double seconds = (timestampMillis - state.lastTimestampMillis) / 1000.0;
+                double logReturn = logRate - state.lastLogRate;
+                state.varianceRate = tickLambda * state.varianceRate
+                        + (1 - tickLambda) * (logReturn * logReturn / seconds);
+                state.lastLogRate = logRate;
+                state.lastTimestampMillis = timestampMillis;
+            }
+            return state;
+        });
+    }
+
+    private void seed(ExchangeRate rate) {
+        pairVolatilities.computeIfAbsent(rate.getCurrencyPair(), pair -> new PairVolatility(
+                initialVarianceRate(rate),
+                Math.log(rate.getRate().doubleValue()),
+                rate.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+
+    // volatility_index is an annualised volatility; convert it to variance per second
+    private double initialVarianceRate(ExchangeRate rate) {
+        double annual = rate.getVolatilityIndex() != null
+                ? rate.getVolatilityIndex().doubleValue()
+                : defaultAnnualVolatility;
+        return annual * annual / TRADING_DAYS_PER_YEAR / SECONDS_PER_DAY;
+    }
+
+    private void track(CurrencyPosition position) {
+        int index = factorIndex.computeIfAbsent(position.getCurrency(), this::addFactor);
+        netPositions[index] = netPosition(position);
+        if (values[index] == 0.0) {
+            values[index] = resolveValue(position.getCurrency()).orElse(0.0);
+        }
+    }
+
+    private int addFactor(String currency) {
+        int index = factors.size();
+        ensureCapacity(index + 1);
+        factors.add(currency);
+        return index;
+    }
+
+    // Doubles the capacity when full, so adding n currencies copies the arrays O(log n) times
+    private void ensureCapacity(int required) {
+        int capacity = netPositions.length;
+        if (required <= capacity) {
+            return;
+        }
+        int grownCapacity = Math.max(required, Math.max(capacity * 2, MIN_FACTOR_CAPACITY));
+
+        netPositions = Arrays.copyOf(netPositions, grownCapacity);
+        values = Arrays.copyOf(values, grownCapacity);
+        lastLogValues = Arrays.copyOf(lastLogValues, grownCapacity);
+        Arrays.fill(lastLogValues, capacity, grownCapacity, Double.NaN);
+        returnVariance = Arrays.copyOf(returnVariance, grownCapacity);
+        marketCovariance = Arrays.copyOf(marketCovariance, grownCapacity);
+    }
+
+    private void recompute() {
+        long start = System.nanoTime();
+        int n = factors.size();
+        double horizonSeconds = horizonDays * SECONDS_PER_DAY;
+        boolean useCorrelation = samples >= minCorrelationSamples;
+
+        double[] weighted = new double[n];
+        double[] volatilities = new double[n];
+        for (int i = 0; i < n; i++) {
+            volatilities[i] = Math.sqrt(currencyVarianceRate(factors.get(i)));
+            weighted[i] = netPositions[i] * values[i] * volatilities[i];
+        }
+
+        double portfolioVariance = 0.0;
+        double loadingSum = 0.0;
+        for (int i = 0; i < n; i++) {
+            portfolioVariance += weighted[i] * weighted[i];
+            if (useCorrelation) {
+                double loading = weighted[i] * marketCorrelation(i);
+                loadingSum += loading;
+                portfolioVariance -= loading * loading;  // Diagonal is already counted in full
+            }
+        }
+        portfolioVariance += loadingSum * loadingSum;
+
+        Map<String, PortfolioRisk.CurrencyRisk> currencies = new HashMap<>();
+        Set<String> changed = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            String currency = factors.get(i);
+            double standalone = standaloneValueAtRisk(weighted[i]);
+            currencies.put(currency, new PortfolioRisk.CurrencyRisk(
+                    netPositions[i] * values[i],
+                    volatilities[i] * Math.sqrt(TRADING_DAYS_PER_YEAR * SECONDS_PER_DAY),
+                    standalone));
+            if (limitBand(getValueAtRisk(currency)) != limitBand(standalone)) {
+                changed.add(currency);
+            }
+        }
+
+        latest = new PortfolioRisk(
+                crossRateEngine.getReportingCurrency(),
+                zScore,
+                horizonDays,
+                zScore * Math.sqrt(horizonSeconds * Math.max(portfolioVariance, 0.0)),
+                Collections.unmodifiableMap(currencies),
+                LocalDateTime.now(),
+                (System.nanoTime() - start) / 1000);
+
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new ValueAtRiskUpdatedEvent(changed));
+        }
+    }
+
+    // weightedExposure is exposure in reporting currency times volatility per second
+    private double standaloneValueAtRisk(double weightedExposure) {
+        return zScore * Math.sqrt(horizonDays * SECONDS_PER_DAY) * Math.abs(weightedExposure);
+    }
+
+    private int limitBand(double valueAtRisk) {
+        return valueAtRisk > highVarLimit ? 2 : valueAtRisk > mediumVarLimit ? 1 : 0;
+    }
+
+    private double marketCorrelation(int i) {
+        double denominator = Math.sqrt(returnVariance[i] * marketVariance);
+        return denominator > 0 ? Math.max(-1.0, Math.min(1.0, marketCovariance[i] / denominator)) : 0.0;
+    }
+
+    // Sum of leg variances; legs are treated as independent
+    private double currencyVarianceRate(String currency) {
+        Optional<CrossRate> crossRate = crossRateEngine.resolve(currency, crossRateEngine.getReportingCurrency());
+        if (crossRate.isEmpty()) {
+            return 0.0;
+        }
+        double variance = 0.0;
+        for (String leg : crossRate.get().getLegs()) {
+            PairVolatility state = pairVolatilities.get(leg);
+            variance += state != null
+                    ? state.varianceRate
+                    : defaultAnnualVolatility * defaultAnnualVolatility / TRADING_DAYS_PER_YEAR / SECONDS_PER_DAY;
+        }
+        return variance;
+    }
+
+    private OptionalDouble resolveValue(String currency) {
+        return crossRateEngine.resolve(currency, crossRateEngine.getReportingCurrency())
+                .map(crossRate -> OptionalDouble.of(crossRate.getRate().doubleValue()))
+                .orElse(OptionalDouble.empty());
+    }
+
+    private static double netPosition(CurrencyPosition position) {
+        try {
+            return NetExposure.scaledNet(position) / Math.pow(10, NetExposure.SCALE);
+        } catch (ArithmeticException e) {
+            return position.getBalance()
+                    .add(position.getPendingIncome())
+                    .subtract(position.getPendingPayments())
+                    .doubleValue();
+        }
+    }
+
+    private static final class PairVolatility {
+        private double varianceRate;  // Per second
+        private double lastLogRate;
+        private long lastTimestampMillis;
+
+        private PairVolatility(double varianceRate, double lastLogRate, long lastTimestampMillis) {
+            this.varianceRate = varianceRate;
+            this.lastLogRate = lastLogRate;
+            this.lastTimestampMillis = lastTimestampMillis;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.metrics.MetricsRegistry;
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.ExchangeRate;
+import com.worldfirst.fxdashboard.repository.CurrencyPositionRepository;
+import com.worldfirst.fxdashboard.repository.RateCache;
+import com.worldfirst.fxdashboard.repository.RateRepository;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Interaction tests: they check how many times FXRiskService calls each repository
+ * for books of different sizes, against mocks. They do not count the statements a
+ * repository method sends to the database, which is up to that method.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FXRiskServiceTest {
+
+    @Mock
+    private CurrencyPositionRepository positionRepository;
+
+    @Mock
+    private RateRepository rateRepository;
+
+    @Spy
+    private RateCache rateCache = new RateCache(Duration.ofMinutes(5));
+
+    @Spy
+    private CrossRateEngine crossRateEngine = new CrossRateEngine(rateCache, "USD");
+
+    @Spy
+    private MetricsRegistry metricsRegistry =
+            new MetricsRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+    @InjectMocks
+    private FXRiskService fxRiskService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 1000})
+    void getAllPositionsCallsEachRepositoryOnceRegardlessOfBookSize(int positionCount) {
+        List<CurrencyPosition> book = book(positionCount);
+        List<ExchangeRate> rates = book.stream()
+                .map(position -> rate(position.getCurrency() + "USD"))
+                .toList();
+        crossRateEngine.rebuild(rates);
+        Map<String, ExchangeRate> ratesByPair = rates.stream()
+                .collect(Collectors.toMap(ExchangeRate::getCurrencyPair, Function.identity()));
+
+        when(positionRepository.findAll()).thenReturn(book);
+        when(rateRepository.findLatestRates(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> pairs = invocation.getArgument(0);
+            return pairs.stream().collect(Collectors.toMap(Function.identity(), ratesByPair::get));
+        });
+
+        List<CurrencyPosition> positions = fxRiskService.getAllPositions();
+
+        assertThat(positions).hasSize(positionCount)
+                .allSatisfy(position -> assertThat(position.getCurrentRate()).isNotNull());
+        verify(positionRepository, times(1)).findAll();
+        verify(rateRepository, times(1)).findLatestRates(anyCollection());
+        verifyNoMoreInteractions(positionRepository, rateRepository);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 1000})
+    void getAllPositionsServesWarmRatesWithoutCallingTheRateRepository(int positionCount) {
+        List<CurrencyPosition> book = book(positionCount);
+        List<ExchangeRate> rates = book.stream()
+                .map(position -> rate(position.getCurrency() + "USD"))
+                .toList();
+        rateCache.warm(rates);
+        crossRateEngine.rebuild(rates);
+        when(positionRepository.findAll()).thenReturn(book);
+
+        fxRiskService.getAllPositions();
+
+        verify(positionRepository, times(1)).findAll();
+        verifyNoMoreInteractions(positionRepository, rateRepository);
+    }
+
+    private static List<CurrencyPosition> book(int size) {
+        List<CurrencyPosition> positions = new ArrayList<>(size);
+        for (int i = 0; positions.size() < size; i++) {
+            String code = new String(new char[] {
+                    (char) ('A' + i / (26 * 26) % 26),
+                    (char) ('A' + i / 26 % 26),
+                    (char) ('A' + i % 26)
+            });
+            if (code.equals("USD")) {
+                continue;
+            }
+            CurrencyPosition position = new CurrencyPosition();
+            position.setCurrency(code);
+            position.setBalance(BigDecimal.valueOf(100_000));
+            position.setPendingIncome(BigDecimal.ZERO);
+            position.setPendingPayments(BigDecimal.ZERO);
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private static ExchangeRate rate(String currencyPair) {
+        ExchangeRate rate = new ExchangeRate();
+        rate.setCurrencyPair(currencyPair);
+        rate.setRate(new BigDecimal("1.250000"));
+        rate.setTimestamp(LocalDateTime.now());
+        return rate;
+    }
+}
@@ -0,0 +1,136 @@
+package com.worldfirst.fxdashboard.service;
+
+import com.worldfirst.fxdashboard.model.CurrencyPosition;
+import com.worldfirst.fxdashboard.model.NetExposure;
+import com.worldfirst.fxdashboard.model.RiskAlert;
+import com.worldfirst.fxdashboard.model.enums.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The scaled-long classification must agree with the BigDecimal reference
+ * (|balance + income - payments| against 1M and 500k) for every input, including
+ * those that force the BigDecimal fallback.
+ */
+class RiskAssessorTest {
+    private static final BigDecimal HIGH = new BigDecimal("1000000");
+    private static final BigDecimal MEDIUM = new BigDecimal("500000");
+
+    private RiskAssessor riskAssessor;
+
+    @BeforeEach
+    void setUp() {
+        riskAssessor = new RiskAssessor(mock(ValueAtRiskEngine.class));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // Threshold boundaries: the comparisons are strict
+            "1000000, 0, 0, MEDIUM",
+            "1000000.0001, 0, 0, HIGH",
+            "999999.9999, 0.0001, 0, MEDIUM",
+            "500000, 0, 0, LOW",
+            "500000.0001, 0, 0, MEDIUM",
+            "-1000000, 0, 0, MEDIUM",
+            "-1000000.0001, 0, 0, HIGH",
+            "0, 0, 500000.0001, MEDIUM",
+            "400000, 700000, 99999.9999, HIGH",
+            // More than four decimals: falls back to BigDecimal
+            "1000000.00001, 0, 0, HIGH",
+            "500000.00000001, 0, 0, MEDIUM",
+            // Beyond a long at scale 4: falls back to BigDecimal
+            "922337203685477.5808, 0, 0, HIGH",
+            "-922337203685477.5809, 0, 0, HIGH",
+            "922337203685477.5807, 922337203685477.5807, 0, HIGH",
+            "1E+30, 0, 1E+30, LOW"
+    })
+    void classifiesLikeBigDecimal(String balance, String income, String payments, RiskLevel expected) {
+        CurrencyPosition position = position(new BigDecimal(balance), new BigDecimal(income), new BigDecimal(payments));
+
+        assertThat(riskAssessor.calculateNotionalRiskLevel(position))
+                .isEqualTo(expected)
+                .isEqualTo(reference(position));
+    }
+
+    @Test
+    void agreesWithBigDecimalOnRandomAmounts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            CurrencyPosition position = position(
+                    randomAmount(random), randomAmount(random), randomAmount(random));
+            assertThat(riskAssessor.calculateNotionalRiskLevel(position))
+                    .as("position %s / %s / %s",
+                            position.getBalance(), position.getPendingIncome(), position.getPendingPayments())
+                    .isEqualTo(reference(position));
+        }
+    }
+
+    @Test
+    void lowBalanceMatchesBigDecimalAtTheThreshold() {
+        assertThat(riskAssessor.isLowBalance(position(new BigDecimal("49999.9999"), BigDecimal.ZERO, BigDecimal.ZERO))).isTrue();
+        assertThat(riskAssessor.isLowBalance(position(new BigDecimal("50000"), BigDecimal.ZERO, BigDecimal.ZERO))).isFalse();
+        assertThat(riskAssessor.isLowBalance(position(new BigDecimal("49999.99999"), BigDecimal.ZERO, BigDecimal.ZERO))).isTrue();
+        assertThat(riskAssessor.isLowBalance(position(new BigDecimal("1E+30"), BigDecimal.ZERO, BigDecimal.ZERO))).isFalse();
+    }
+
+    // Hysteresis compares actualValue with the threshold, so it must be the balance the condition tests
+    @Test
+    void lowBalanceAlertReportsTheBalance() {
+        RiskAlert alert = riskAssessor.createLowBalanceAlert(
+                position(new BigDecimal("40000"), new BigDecimal("900000"), BigDecimal.ZERO));
+
+        assertThat(alert.getActualValue()).isEqualTo(40_000.0);
+        assertThat(alert.getThresholdValue()).isEqualTo(50_000.0);
+    }
+
+    @Test
+    void scaledNetRejectsWhatItCannotRepresent() {
+        assertThat(NetExposure.scaledNet(position(new BigDecimal("1234.5"), new BigDecimal("10"), new BigDecimal("0.25"))))
+                .isEqualTo(12_442_500L);
+        assertThatThrownBy(() -> NetExposure.scaledNet(position(new BigDecimal("0.00001"), BigDecimal.ZERO, BigDecimal.ZERO)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> NetExposure.scaledNet(position(new BigDecimal("922337203685477.5807"), BigDecimal.ONE, BigDecimal.ZERO)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    // The original calculation the scaled path replaced
+    private static RiskLevel reference(CurrencyPosition position) {
+        BigDecimal net = position.getBalance()
+                .add(position.getPendingIncome())
+                .subtract(position.getPendingPayments())
+                .abs();
+        if (net.compareTo(HIGH) > 0) {
+            return RiskLevel.HIGH;
+        } else if (net.compareTo(MEDIUM) > 0) {
+            return RiskLevel.MEDIUM;
+        }
+        return RiskLevel.LOW;
+    }
+
+    // Mostly DECIMAL(19,4) amounts near the thresholds, with some extra decimals and huge values
+    private static BigDecimal randomAmount(Random random) {
+        return switch (random.nextInt(10)) {
+            case 0 -> BigDecimal.valueOf(random.nextLong(), 4 + random.nextInt(4));
+            case 1 -> BigDecimal.valueOf(random.nextLong()).multiply(BigDecimal.valueOf(random.nextLong()));
+            default -> BigDecimal.valueOf(random.nextLong(-2_000_000_0000L, 2_000_000_0000L), 4);
+        };
+    }
+
+    private static CurrencyPosition position(BigDecimal balance, BigDecimal income, BigDecimal payments) {
+        CurrencyPosition position = new CurrencyPosition();
+        position.setCurrency("EUR");
+        position.setBalance(balance);
+        position.setPendingIncome(income);
+        position.setPendingPayments(payments);
+        return position;
+    }
+}